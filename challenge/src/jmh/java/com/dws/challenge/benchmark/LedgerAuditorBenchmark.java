@@ -0,0 +1,102 @@
+package com.dws.challenge.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+
+import com.dws.challenge.audit.LedgerAuditor;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountLocks;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Cost of the {@link LedgerAuditor} listener in {@link AccountsService#transferAmount}: without the
+ * listener ({@code off}), with the listener between audits ({@code idle}) and while a background
+ * thread audits the ledger back to back ({@code auditing}). The service is detached from the
+ * application so that nothing but the listener differs; compare the mean and p99 of the sample mode
+ * results of the three parameter values.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class LedgerAuditorBenchmark {
+
+	private static final int ACCOUNTS = 10_000;
+
+	@Param({ "off", "idle", "auditing" })
+	public String audit;
+
+	private AccountsService accountsService;
+
+	private Transaction[] transactions;
+
+	private Thread auditThread;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// no application context configures logging here, transfers log at INFO
+		LoggingSystem.get(getClass().getClassLoader()).setLogLevel("com.dws.challenge", LogLevel.WARN);
+
+		AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+		AccountLocks accountLocks = new AccountLocks(AccountLocks.DEFAULT_STRIPES);
+		LedgerAuditor ledgerAuditor = new LedgerAuditor(accountsRepository, accountLocks);
+		this.accountsService = AccountsService.detached(accountsRepository, (account, transferDescription) -> {
+		}, accountLocks, "off".equals(this.audit) ? List.of() : List.of(ledgerAuditor));
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			this.accountsService.createAccount(new Account("Id-" + i, new BigDecimal(1_000_000_000)));
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		this.transactions = new Transaction[4096];
+		for (int i = 0; i < this.transactions.length; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			this.transactions[i] = new Transaction("Id-" + from, "Id-" + to, BigDecimal.ONE);
+		}
+
+		if ("auditing".equals(this.audit)) {
+			this.auditThread = new Thread(() -> {
+				while (!Thread.currentThread().isInterrupted()) {
+					ledgerAuditor.audit();
+				}
+			}, "ledger-audit-benchmark");
+			this.auditThread.setDaemon(true);
+			this.auditThread.start();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		if (this.auditThread != null) {
+			this.auditThread.interrupt();
+			this.auditThread.join();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next = new SplittableRandom().nextInt();
+
+		Transaction next(Transaction[] transactions) {
+			return transactions[this.next++ & (transactions.length - 1)];
+		}
+	}
+
+	@Benchmark
+	public void transferAmount(Cursor cursor) {
+		this.accountsService.transferAmount(cursor.next(this.transactions));
+	}
+}
@@ -0,0 +1,89 @@
+package com.dws.challenge.benchmark;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.fraud.VelocityPreCheck;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Cost of the velocity pre-check on its own and inside {@link AccountsService#transferAmount}, with
+ * the check disabled and enabled. Limits are set so that no transfer is rejected; compare the p99 of
+ * the sample mode results of both parameter values.
+ */
+@State(Scope.Benchmark)
+public class TransferPreCheckBenchmark {
+
+	private static final int ACCOUNTS = 1000;
+
+	@Param({ "false", "true" })
+	public boolean velocityEnabled;
+
+	private ConfigurableApplicationContext context;
+
+	private AccountsService accountsService;
+
+	private VelocityPreCheck velocityPreCheck;
+
+	private Transaction[] transactions;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.context = new SpringApplicationBuilder(ChallengeApplication.class).web(WebApplicationType.NONE).run(
+				"--transfer.velocity.enabled=" + this.velocityEnabled,
+				"--transfer.velocity.max-count=" + Long.MAX_VALUE, "--transfer.velocity.max-amount=1000000000000",
+				"--logging.level.com.dws.challenge=WARN");
+		this.accountsService = this.context.getBean(AccountsService.class);
+		this.velocityPreCheck = this.context.getBean(VelocityPreCheck.class);
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			this.accountsService.createAccount(new Account("Id-" + i, new BigDecimal(1_000_000_000)));
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		this.transactions = new Transaction[4096];
+		for (int i = 0; i < this.transactions.length; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			this.transactions[i] = new Transaction("Id-" + from, "Id-" + to, BigDecimal.ONE);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+
+		Transaction next(Transaction[] transactions) {
+			return transactions[this.next++ & (transactions.length - 1)];
+		}
+	}
+
+	@Benchmark
+	public void preCheck(Cursor cursor) {
+		this.velocityPreCheck.check(cursor.next(this.transactions));
+	}
+
+	@Benchmark
+	public void transferAmount(Cursor cursor) {
+		this.accountsService.transferAmount(cursor.next(this.transactions));
+	}
+}
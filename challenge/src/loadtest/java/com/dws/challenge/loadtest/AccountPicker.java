@@ -0,0 +1,48 @@
+package com.dws.challenge.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Picks account indexes following a Zipf distribution, so a few accounts (merchants) take most of
+ * the traffic the way they do in production. A skew of 0 degrades to a uniform pick.
+ */
+public class AccountPicker {
+
+	private final double[] cumulative;
+
+	private final SplittableRandom random;
+
+	public AccountPicker(int accounts, double skew, long seed) {
+		this.cumulative = new double[accounts];
+		this.random = new SplittableRandom(seed);
+		double sum = 0;
+		for (int i = 0; i < accounts; i++) {
+			sum += 1.0 / Math.pow(i + 1, skew);
+			this.cumulative[i] = sum;
+		}
+		for (int i = 0; i < accounts; i++) {
+			this.cumulative[i] /= sum;
+		}
+	}
+
+	public int next() {
+		int index = Arrays.binarySearch(this.cumulative, this.random.nextDouble());
+		return Math.min(index < 0 ? -index - 1 : index, this.cumulative.length - 1);
+	}
+
+	/**
+	 * Picks an account different from {@code excluded}.
+	 */
+	public int nextExcluding(int excluded) {
+		int index = next();
+		while (index == excluded) {
+			index = next();
+		}
+		return index;
+	}
+
+	public int nextAmount(int maxAmount) {
+		return this.random.nextInt(maxAmount) + 1;
+	}
+}
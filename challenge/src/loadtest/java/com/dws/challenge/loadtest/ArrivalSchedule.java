@@ -0,0 +1,46 @@
+package com.dws.challenge.loadtest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-model arrival times. Every request gets an intended start time that does not depend on how
+ * fast the server answered earlier requests, so latency measured from the intended start is free
+ * of coordinated omission.
+ */
+public class ArrivalSchedule {
+
+	private final LoadTestConfig config;
+
+	private final SplittableRandom random;
+
+	private long nextOffsetNanos;
+
+	public ArrivalSchedule(LoadTestConfig config) {
+		this.config = config;
+		this.random = new SplittableRandom(config.getSeed());
+	}
+
+	/**
+	 * Returns the intended start of the next request, in nanoseconds relative to the start of the
+	 * run.
+	 */
+	public long nextOffsetNanos() {
+		long current = this.nextOffsetNanos;
+		double gapNanos = TimeUnit.SECONDS.toNanos(1) / currentRate(current);
+		if (this.config.getMode() == LoadTestConfig.ArrivalMode.POISSON) {
+			gapNanos = -Math.log(1.0 - this.random.nextDouble()) * gapNanos;
+		}
+		this.nextOffsetNanos = current + Math.max(1L, (long) gapNanos);
+		return current;
+	}
+
+	private double currentRate(long offsetNanos) {
+		if (this.config.getMode() != LoadTestConfig.ArrivalMode.BURST) {
+			return this.config.getRate();
+		}
+		long second = TimeUnit.NANOSECONDS.toSeconds(offsetNanos);
+		boolean inBurst = second % this.config.getBurstEverySeconds() < this.config.getBurstLengthSeconds();
+		return inBurst ? this.config.getBurstRate() : this.config.getRate();
+	}
+}
@@ -0,0 +1,138 @@
+package com.dws.challenge.loadtest;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.dws.challenge.batch.EndOfDayJob;
+import com.dws.challenge.batch.EndOfDayRequest;
+import com.dws.challenge.batch.JournalSegment;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReconciliationReport;
+import com.dws.challenge.replication.TransferLogEntry;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the throughput of the end-of-day batch on a generated day: a journal with the creation of
+ * every account followed by random transfers, and a repository holding the resulting balances.
+ * Accounts are split into as many groups as there are generator threads and every journal segment
+ * only moves money within one group, so the segments can be generated in parallel and still chain up.
+ */
+@Slf4j
+public class EndOfDayBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int accounts = Integer.getInteger("loadtest.accounts", 1_000_000);
+		long transfers = Long.getLong("loadtest.transfers", 10_000_000L);
+		int segmentEntries = Integer.getInteger("loadtest.segmentEntries", 1_000_000);
+		int partitions = Integer.getInteger("loadtest.partitions", 64);
+		int parallelism = Integer.getInteger("loadtest.parallelism", Runtime.getRuntime().availableProcessors());
+		Path directory = Files.createTempDirectory("eod-benchmark");
+
+		long start = System.nanoTime();
+		long[] balances = new long[accounts];
+		List<JournalSegment> segments = generateJournal(directory, accounts, transfers, segmentEntries, parallelism,
+				balances);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+		for (int i = 0; i < accounts; i++) {
+			repository.createAccount(new Account(accountId(i), BigDecimal.valueOf(balances[i], 2)));
+		}
+		log.info("Generated {} accounts and {} transfers in {} journal segments in {}s", accounts, transfers,
+				segments.size(), seconds(System.nanoTime() - start));
+
+		EndOfDayRequest request = EndOfDayRequest.builder().fromSequence(0).toSequence(accounts + transfers)
+				.cutoff(Instant.now()).segments(segments).statementsDirectory(directory.resolve("statements"))
+				.build();
+		start = System.nanoTime();
+		ReconciliationReport report = new EndOfDayJob(repository, partitions, parallelism).run(request);
+		double runSeconds = (System.nanoTime() - start) / 1e9;
+
+		log.info("End of day with parallelism {}: {}s, {} transfers/s, {} accounts/s, balanced {}, {} breaks",
+				parallelism, String.format("%.1f", runSeconds), (long) (transfers / runSeconds),
+				(long) (accounts / runSeconds), report.isBalanced(), report.getBreaks());
+		log.info("Statements written to {}", report.getStatements());
+		System.exit(report.isBalanced() ? 0 : 1);
+	}
+
+	private static List<JournalSegment> generateJournal(Path directory, int accounts, long transfers,
+			int segmentEntries, int groups, long[] balances) {
+		List<JournalSegment> segments = new ArrayList<>();
+		for (long first = 1; first <= accounts; first += segmentEntries) {
+			segments.add(new JournalSegment(directory, first, Math.min(first + segmentEntries - 1, accounts)));
+		}
+		int creationSegments = segments.size();
+		for (long first = accounts + 1L; first <= accounts + transfers; first += segmentEntries) {
+			segments.add(new JournalSegment(directory, first, Math.min(first + segmentEntries - 1, accounts + transfers)));
+		}
+
+		IntStream.range(0, creationSegments).parallel().forEach(index -> write(segments.get(index), out -> {
+			JournalSegment segment = segments.get(index);
+			for (long sequence = segment.getFirstSequence(); sequence <= segment.getLastSequence(); sequence++) {
+				int account = (int) (sequence - 1);
+				balances[account] = 100_000_00L;
+				TransferLogEntry.create(sequence, 0, accountId(account), BigDecimal.valueOf(balances[account], 2))
+						.writeTo(out);
+			}
+		}));
+		// transfer segments of one group are generated in order by one thread, groups in parallel
+		IntStream.range(0, groups).parallel().forEach(group -> {
+			SplittableRandom random = new SplittableRandom(group);
+			int groupSize = (accounts - group + groups - 1) / groups;
+			for (int index = creationSegments + group; index < segments.size(); index += groups) {
+				JournalSegment segment = segments.get(index);
+				write(segment, out -> {
+					long sequence = segment.getFirstSequence();
+					while (sequence <= segment.getLastSequence()) {
+						int from = group + groups * random.nextInt(groupSize);
+						int to = group + groups * random.nextInt(groupSize);
+						long cents = 1 + random.nextInt(10_000);
+						if (from == to || balances[from] <= cents) {
+							continue;
+						}
+						balances[from] -= cents;
+						balances[to] += cents;
+						TransferLogEntry.transfer(sequence++, 0, accountId(from), accountId(to),
+								BigDecimal.valueOf(cents, 2), BigDecimal.valueOf(balances[from], 2),
+								BigDecimal.valueOf(balances[to], 2)).writeTo(out);
+					}
+				});
+			}
+		});
+		return segments;
+	}
+
+	private static void write(JournalSegment segment, EntryWriter writer) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(Files.newOutputStream(segment.getPath()), 1 << 16), 1 << 16))) {
+			writer.write(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String accountId(int index) {
+		return "EOD-" + index;
+	}
+
+	private static String seconds(long nanos) {
+		return String.format("%.1f", nanos / 1e9);
+	}
+
+	@FunctionalInterface
+	private interface EntryWriter {
+
+		void write(DataOutputStream out) throws IOException;
+	}
+}
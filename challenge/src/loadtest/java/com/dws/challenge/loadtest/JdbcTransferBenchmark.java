@@ -0,0 +1,105 @@
+package com.dws.challenge.loadtest;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.service.AccountsService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Boots the application with the JDBC account store and drives {@link AccountsService#transferAmount}
+ * from a fixed number of threads as fast as it completes, then compares the measured transfers per
+ * second with {@code loadtest.targetTps} and exits with 1 when it was missed.
+ */
+@Slf4j
+public class JdbcTransferBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String profiles = System.getProperty("loadtest.profiles", "jdbc");
+		int threads = Integer.getInteger("loadtest.threads", 8);
+		int accounts = Integer.getInteger("loadtest.accounts", 10_000);
+		int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+		int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+		long targetTps = Long.getLong("loadtest.targetTps", 1_000);
+
+		ConfigurableApplicationContext context = SpringApplication.run(ChallengeApplication.class,
+				"--server.port=0", "--spring.profiles.active=" + profiles,
+				"--logging.level.com.dws.challenge.service=WARN", "--logging.level.com.dws.challenge.web=WARN");
+		boolean passed;
+		try {
+			AccountsService accountsService = context.getBean(AccountsService.class);
+			for (int i = 0; i < accounts; i++) {
+				accountsService.createAccount(new Account("J-" + i, new BigDecimal(1_000_000)));
+			}
+
+			run(accountsService, threads, accounts, TimeUnit.SECONDS.toNanos(warmupSeconds), new Recorder(3),
+					new AtomicLong());
+			Recorder latency = new Recorder(3);
+			AtomicLong rejected = new AtomicLong();
+			long elapsedNanos = run(accountsService, threads, accounts, TimeUnit.SECONDS.toNanos(durationSeconds),
+					latency, rejected);
+
+			Histogram histogram = latency.getIntervalHistogram();
+			long tps = histogram.getTotalCount() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+			passed = tps >= targetTps;
+			log.info("{} transfers on {} accounts with {} threads ({}): {} TPS, target {} {}, {} rejected",
+					histogram.getTotalCount(), accounts, threads, profiles, tps, targetTps, passed ? "met" : "MISSED",
+					rejected.get());
+			log.info("transferAmount latency: p50={}ms p99={}ms p99.9={}ms max={}ms",
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+					millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+		} finally {
+			context.close();
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	private static long run(AccountsService accountsService, int threads, int accounts, long durationNanos,
+			Recorder latency, AtomicLong rejected) throws InterruptedException {
+		long start = System.nanoTime();
+		long deadline = start + durationNanos;
+		ExecutorService drivers = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			long seed = t;
+			drivers.execute(() -> drive(accountsService, accounts, seed, deadline, latency, rejected));
+		}
+		drivers.shutdown();
+		drivers.awaitTermination(durationNanos + TimeUnit.SECONDS.toNanos(30), TimeUnit.NANOSECONDS);
+		return System.nanoTime() - start;
+	}
+
+	private static void drive(AccountsService accountsService, int accounts, long seed, long deadline,
+			Recorder latency, AtomicLong rejected) {
+		SplittableRandom random = new SplittableRandom(seed);
+		long now = System.nanoTime();
+		while (now < deadline) {
+			int from = random.nextInt(accounts);
+			int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+			try {
+				accountsService.transferAmount(new Transaction("J-" + from, "J-" + to, BigDecimal.ONE));
+			} catch (RuntimeException e) {
+				rejected.incrementAndGet();
+			}
+			long end = System.nanoTime();
+			latency.recordValue(end - now);
+			now = end;
+		}
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+}
@@ -0,0 +1,65 @@
+package com.dws.challenge.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Value;
+
+/**
+ * Point in time view of the JVM counters reported by the load test: collections and pause time per
+ * collector, bytes allocated by live threads and heap occupancy.
+ */
+@Value
+public class JvmSnapshot {
+
+	Map<String, long[]> collectors;
+
+	long allocatedBytes;
+
+	MemoryUsage heap;
+
+	public static JvmSnapshot take() {
+		Map<String, long[]> collectors = new LinkedHashMap<>();
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			collectors.put(gc.getName(), new long[] { gc.getCollectionCount(), gc.getCollectionTime() });
+		}
+		return new JvmSnapshot(collectors, allocatedBytes(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage());
+	}
+
+	/**
+	 * Sums the allocation counters of all live threads. Threads that died during the run are not
+	 * included, which is fine for the long lived server and client pools measured here.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		long[] allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds());
+		long total = 0;
+		for (long bytes : allocated) {
+			total += Math.max(0, bytes);
+		}
+		return total;
+	}
+
+	public String describeSince(JvmSnapshot start, double seconds) {
+		StringBuilder report = new StringBuilder();
+		this.collectors.forEach((name, counters) -> {
+			long[] before = start.collectors.getOrDefault(name, new long[2]);
+			report.append(String.format("  gc %-24s collections=%d time=%dms%n", name, counters[0] - before[0],
+					counters[1] - before[1]));
+		});
+		if (this.allocatedBytes >= 0 && start.allocatedBytes >= 0) {
+			double allocatedMb = (this.allocatedBytes - start.allocatedBytes) / (1024.0 * 1024.0);
+			report.append(String.format("  allocated %.1f MB (%.1f MB/s)%n", allocatedMb, allocatedMb / seconds));
+		}
+		report.append(String.format("  heap used %d MB of %d MB committed%n", this.heap.getUsed() >> 20,
+				this.heap.getCommitted() >> 20));
+		return report.toString();
+	}
+}
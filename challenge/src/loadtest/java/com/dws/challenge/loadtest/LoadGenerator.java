@@ -0,0 +1,183 @@
+package com.dws.challenge.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Standalone load generator for the fund transfer endpoint.
+ * <p>
+ * Boots the application in-process (or targets {@code -Dloadtest.target}), creates the configured
+ * account population and then fires {@code POST /v1/accounts/fundTransfer} requests on an open
+ * model schedule: requests are sent at their intended time whether or not earlier requests have
+ * completed. Accounts are picked with a seeded Zipf distribution so the same request sequence is
+ * replayed on every run. After the warm-up phase it reports latency percentiles, error rates and a
+ * GC/allocation summary of this JVM.
+ */
+@Slf4j
+public class LoadGenerator {
+
+	private static final String TRANSFER_BODY = "{\"accountFrom\":\"%s\",\"accountTo\":\"%s\",\"amount\":\"%d\"}";
+
+	private final LoadTestConfig config;
+
+	private final LoadReport report = new LoadReport();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public LoadGenerator(LoadTestConfig config) {
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+		if (config.getAccounts() < 2) {
+			throw new IllegalArgumentException("At least two accounts are needed to transfer money");
+		}
+
+		ConfigurableApplicationContext context = null;
+		String target = config.getTarget();
+		if (target.isEmpty()) {
+			context = SpringApplication.run(ChallengeApplication.class, "--server.port=0",
+					"--spring.profiles.active=" + config.getProfiles(), "--logging.level.com.dws.challenge.service=WARN",
+					"--logging.level.com.dws.challenge.web=WARN");
+			target = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+		}
+
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(config.getClientThreads());
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor)
+				.connectTimeout(Duration.ofSeconds(5)).build();
+		try {
+			LoadGenerator generator = new LoadGenerator(config);
+			generator.createAccounts(context, client, target);
+			generator.run(client, target);
+		} finally {
+			clientExecutor.shutdownNow();
+			if (context != null) {
+				context.close();
+			}
+		}
+		System.exit(0);
+	}
+
+	static String accountId(int index) {
+		return "LT-" + index;
+	}
+
+	private void createAccounts(ConfigurableApplicationContext context, HttpClient client, String target)
+			throws Exception {
+		log.info("Creating {} accounts with balance {}", this.config.getAccounts(), this.config.getInitialBalance());
+		if (context != null) {
+			AccountsService accountsService = context.getBean(AccountsService.class);
+			for (int i = 0; i < this.config.getAccounts(); i++) {
+				accountsService.createAccount(new Account(accountId(i), this.config.getInitialBalance()));
+			}
+			return;
+		}
+		for (int i = 0; i < this.config.getAccounts(); i++) {
+			String body = "{\"accountId\":\"" + accountId(i) + "\",\"balance\":" + this.config.getInitialBalance() + "}";
+			// 400 means the account survived from a previous run, which is fine for a shared target
+			client.send(post(target + "/v1/accounts", body), HttpResponse.BodyHandlers.discarding());
+		}
+	}
+
+	private void run(HttpClient client, String target) throws InterruptedException {
+		URI transferUri = URI.create(target + "/v1/accounts/fundTransfer");
+		ArrivalSchedule schedule = new ArrivalSchedule(this.config);
+		AccountPicker picker = new AccountPicker(this.config.getAccounts(), this.config.getSkew(), this.config.getSeed());
+
+		long start = System.nanoTime();
+		long measureStart = start + TimeUnit.SECONDS.toNanos(this.config.getWarmupSeconds());
+		long end = measureStart + TimeUnit.SECONDS.toNanos(this.config.getDurationSeconds());
+		JvmSnapshot jvmStart = null;
+		log.info("Warming up for {}s, then measuring for {}s in {} mode", this.config.getWarmupSeconds(),
+				this.config.getDurationSeconds(), this.config.getMode());
+
+		while (true) {
+			long intendedStart = start + schedule.nextOffsetNanos();
+			if (intendedStart >= end) {
+				break;
+			}
+			boolean measured = intendedStart >= measureStart;
+			if (measured && jvmStart == null) {
+				this.report.reset();
+				jvmStart = JvmSnapshot.take();
+			}
+
+			// the request sequence is drawn before any timing decision so every run replays it
+			int from = picker.next();
+			int to = picker.nextExcluding(from);
+			int amount = picker.nextAmount(this.config.getMaxAmount());
+
+			waitUntil(intendedStart);
+			if (this.inFlight.get() >= this.config.getMaxInFlight()) {
+				if (measured) {
+					this.report.recordDropped();
+				}
+				continue;
+			}
+
+			HttpRequest request = HttpRequest.newBuilder(transferUri).header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(String.format(TRANSFER_BODY, accountId(from),
+							accountId(to), amount)))
+					.build();
+			this.inFlight.incrementAndGet();
+			long sent = System.nanoTime();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+				long completed = System.nanoTime();
+				this.inFlight.decrementAndGet();
+				if (!measured) {
+					return;
+				}
+				if (error != null) {
+					this.report.recordFailure(intendedStart, completed);
+				} else {
+					this.report.recordResponse(response.statusCode(), intendedStart, sent, completed);
+				}
+			});
+		}
+
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (this.inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+			Thread.sleep(10);
+		}
+		double seconds = this.config.getDurationSeconds();
+		JvmSnapshot jvmEnd = JvmSnapshot.take();
+		log.info("Load test finished: target={} accounts={} skew={} mode={} rate={}/s\n{}{}", target,
+				this.config.getAccounts(), this.config.getSkew(), this.config.getMode(), this.config.getRate(),
+				this.report.describe(seconds), jvmStart == null ? "" : jvmEnd.describeSince(jvmStart, seconds));
+	}
+
+	private static void waitUntil(long deadlineNanos) {
+		long remaining;
+		while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+			if (remaining > TimeUnit.MICROSECONDS.toNanos(100)) {
+				LockSupport.parkNanos(remaining - TimeUnit.MICROSECONDS.toNanos(50));
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	private static HttpRequest post(String uri, String body) {
+		return HttpRequest.newBuilder(URI.create(uri)).header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+	}
+}
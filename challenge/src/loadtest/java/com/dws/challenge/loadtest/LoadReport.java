@@ -0,0 +1,92 @@
+package com.dws.challenge.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Collects the outcome of every request of the measured phase.
+ * <p>
+ * {@code latency} is measured from the intended start of a request and therefore includes the time
+ * the request would have waited behind a stalled server (coordinated omission corrected), while
+ * {@code serviceTime} is measured from the moment the request was actually sent.
+ */
+public class LoadReport {
+
+	private final Histogram latency = new ConcurrentHistogram(3);
+
+	private final Histogram serviceTime = new ConcurrentHistogram(3);
+
+	private final LongAdder succeeded = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder shed = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	public void recordResponse(int status, long intendedStartNanos, long sentNanos, long completedNanos) {
+		this.latency.recordValue(completedNanos - intendedStartNanos);
+		this.serviceTime.recordValue(completedNanos - sentNanos);
+		if (status == 200) {
+			this.succeeded.increment();
+		} else if (status == 400) {
+			// business rejections such as insufficient balance, the server handled them correctly
+			this.rejected.increment();
+		} else if (status == 503) {
+			// shed by the concurrency limiter, answered without doing the work
+			this.shed.increment();
+		} else {
+			this.failed.increment();
+		}
+	}
+
+	public void recordFailure(long intendedStartNanos, long completedNanos) {
+		this.latency.recordValue(completedNanos - intendedStartNanos);
+		this.failed.increment();
+	}
+
+	public void recordDropped() {
+		this.dropped.increment();
+	}
+
+	public void reset() {
+		this.latency.reset();
+		this.serviceTime.reset();
+		this.succeeded.reset();
+		this.rejected.reset();
+		this.shed.reset();
+		this.failed.reset();
+		this.dropped.reset();
+	}
+
+	public String describe(double seconds) {
+		long total = this.succeeded.sum() + this.rejected.sum() + this.shed.sum() + this.failed.sum();
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("  requests %d (%.0f/s) ok=%d rejected=%d shed=%d failed=%d dropped=%d%n", total,
+				total / seconds, this.succeeded.sum(), this.rejected.sum(), this.shed.sum(), this.failed.sum(),
+				this.dropped.sum()));
+		// arrivals the generator dropped count as errors, even when no request was sent at all
+		long arrivals = total + this.dropped.sum();
+		report.append(String.format("  error rate %.4f%%%n",
+				arrivals == 0 ? 0.0 : 100.0 * (this.failed.sum() + this.dropped.sum()) / arrivals));
+		report.append(describe("latency", this.latency));
+		report.append(describe("service time", this.serviceTime));
+		return report.toString();
+	}
+
+	private static String describe(String name, Histogram histogram) {
+		return String.format("  %-12s p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms p99.99=%.2fms max=%.2fms%n", name,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getValueAtPercentile(99.99)), millis(histogram.getMaxValue()));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
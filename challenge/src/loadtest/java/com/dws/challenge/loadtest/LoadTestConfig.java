@@ -0,0 +1,77 @@
+package com.dws.challenge.loadtest;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings of a load test run, read from {@code -Dloadtest.*} system properties.
+ */
+@Value
+@Builder
+public class LoadTestConfig {
+
+	public enum ArrivalMode {
+		CONSTANT, BURST, POISSON
+	}
+
+	/** Base URL of an already running instance; when empty the application is booted in-process. */
+	String target;
+
+	/** Spring profiles of the booted application, e.g. {@code jdbc}. */
+	String profiles;
+
+	int accounts;
+
+	BigDecimal initialBalance;
+
+	/** Zipf exponent used to pick accounts, 0 means uniform. */
+	double skew;
+
+	long seed;
+
+	ArrivalMode mode;
+
+	/** Requests per second outside of bursts. */
+	double rate;
+
+	/** Requests per second during a burst. */
+	double burstRate;
+
+	int burstEverySeconds;
+
+	int burstLengthSeconds;
+
+	int warmupSeconds;
+
+	int durationSeconds;
+
+	int maxAmount;
+
+	/** Upper bound of outstanding requests, further arrivals are counted as dropped. */
+	int maxInFlight;
+
+	int clientThreads;
+
+	public static LoadTestConfig fromSystemProperties() {
+		return LoadTestConfig.builder()
+				.target(System.getProperty("loadtest.target", ""))
+				.profiles(System.getProperty("loadtest.profiles", ""))
+				.accounts(Integer.getInteger("loadtest.accounts", 10_000))
+				.initialBalance(new BigDecimal(System.getProperty("loadtest.initialBalance", "1000000")))
+				.skew(Double.parseDouble(System.getProperty("loadtest.skew", "1.1")))
+				.seed(Long.getLong("loadtest.seed", 42L))
+				.mode(ArrivalMode.valueOf(System.getProperty("loadtest.mode", "constant").toUpperCase()))
+				.rate(Double.parseDouble(System.getProperty("loadtest.rate", "2000")))
+				.burstRate(Double.parseDouble(System.getProperty("loadtest.burstRate", "8000")))
+				.burstEverySeconds(Integer.getInteger("loadtest.burstEverySeconds", 10))
+				.burstLengthSeconds(Integer.getInteger("loadtest.burstLengthSeconds", 2))
+				.warmupSeconds(Integer.getInteger("loadtest.warmupSeconds", 10))
+				.durationSeconds(Integer.getInteger("loadtest.durationSeconds", 60))
+				.maxAmount(Integer.getInteger("loadtest.maxAmount", 100))
+				.maxInFlight(Integer.getInteger("loadtest.maxInFlight", 10_000))
+				.clientThreads(Integer.getInteger("loadtest.clientThreads", 8))
+				.build();
+	}
+}
@@ -0,0 +1,117 @@
+package com.dws.challenge.loadtest;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.replication.ReplicationManager;
+import com.dws.challenge.replication.TransferLog;
+import com.dws.challenge.service.AccountsService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Boots a primary and a follower in one JVM, drives transfers on the primary at a fixed rate and
+ * measures how long a committed transfer takes to be applied on the follower, and how many entries
+ * the follower is behind.
+ */
+@Slf4j
+public class ReplicationLagBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rate = Integer.getInteger("loadtest.rate", 20_000);
+		int threads = Integer.getInteger("loadtest.threads", 4);
+		int accounts = Integer.getInteger("loadtest.accounts", 1000);
+		int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+
+		ConfigurableApplicationContext primary = start("--replication.role=primary", "--replication.port=0");
+		int replicationPort = primary.getBean(ReplicationManager.class).getServerPort();
+		ConfigurableApplicationContext follower = start("--replication.role=follower",
+				"--replication.primary-port=" + replicationPort);
+		try {
+			AccountsService accountsService = primary.getBean(AccountsService.class);
+			TransferLog primaryLog = primary.getBean(TransferLog.class);
+			ReplicationManager followerManager = follower.getBean(ReplicationManager.class);
+			for (int i = 0; i < accounts; i++) {
+				accountsService.createAccount(new Account("R-" + i, new BigDecimal(1_000_000)));
+			}
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+			long intervalNanos = TimeUnit.SECONDS.toNanos(threads) / rate;
+			AtomicLong rejected = new AtomicLong();
+			ExecutorService drivers = Executors.newFixedThreadPool(threads);
+			for (int t = 0; t < threads; t++) {
+				long seed = t;
+				drivers.execute(() -> drive(accountsService, accounts, seed, intervalNanos, deadline, rejected));
+			}
+
+			Histogram applyDelay = new Histogram(3);
+			Histogram entriesBehind = new Histogram(3);
+			while (System.nanoTime() < deadline) {
+				long committed = primaryLog.lastSequence();
+				long start = System.nanoTime();
+				entriesBehind.recordValue(Math.max(0, committed - followerManager.getStatus().getLastSequence()));
+				while (followerManager.getStatus().getLastSequence() < committed) {
+					LockSupport.parkNanos(20_000);
+				}
+				applyDelay.recordValue(System.nanoTime() - start);
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			}
+			drivers.shutdown();
+			drivers.awaitTermination(10, TimeUnit.SECONDS);
+
+			log.info("Replicated {} entries at {}/s, {} transfers rejected", primaryLog.lastSequence(), rate,
+					rejected.get());
+			log.info("Commit to follower apply: p50={}ms p99={}ms p99.9={}ms max={}ms",
+					millis(applyDelay.getValueAtPercentile(50)), millis(applyDelay.getValueAtPercentile(99)),
+					millis(applyDelay.getValueAtPercentile(99.9)), millis(applyDelay.getMaxValue()));
+			log.info("Entries behind: p50={} p99={} max={}", entriesBehind.getValueAtPercentile(50),
+					entriesBehind.getValueAtPercentile(99), entriesBehind.getMaxValue());
+		} finally {
+			follower.close();
+			primary.close();
+		}
+		System.exit(0);
+	}
+
+	private static void drive(AccountsService accountsService, int accounts, long seed, long intervalNanos,
+			long deadline, AtomicLong rejected) {
+		SplittableRandom random = new SplittableRandom(seed);
+		long next = System.nanoTime();
+		while (next < deadline) {
+			LockSupport.parkNanos(next - System.nanoTime());
+			int from = random.nextInt(accounts);
+			int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+			try {
+				accountsService.transferAmount(new Transaction("R-" + from, "R-" + to, BigDecimal.ONE));
+			} catch (RuntimeException e) {
+				rejected.incrementAndGet();
+			}
+			next += intervalNanos;
+		}
+	}
+
+	private static ConfigurableApplicationContext start(String... replicationArgs) {
+		String[] args = new String[replicationArgs.length + 3];
+		args[0] = "--server.port=0";
+		args[1] = "--logging.level.com.dws.challenge.service=WARN";
+		args[2] = "--logging.level.com.dws.challenge.web=WARN";
+		System.arraycopy(replicationArgs, 0, args, 3, replicationArgs.length);
+		return SpringApplication.run(ChallengeApplication.class, args);
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+}
@@ -0,0 +1,134 @@
+package com.dws.challenge.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.StandingOrder;
+import com.dws.challenge.scheduler.HierarchicalTimingWheel;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.StandingOrderService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the standing order scheduler: firing jitter of the timing wheel driven the way
+ * {@link StandingOrderService} drives it, and heap used per pending standing order in the running
+ * application.
+ */
+@Slf4j
+public class StandingOrderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long tickMs = Long.getLong("loadtest.tickMs", 100L);
+		int wheelSize = Integer.getInteger("loadtest.wheelSize", 512);
+		int timers = Integer.getInteger("loadtest.timers", 200_000);
+		int spreadSeconds = Integer.getInteger("loadtest.spreadSeconds", 20);
+		int orders = Integer.getInteger("loadtest.orders", 1_000_000);
+
+		measureJitter(tickMs, wheelSize, timers, spreadSeconds, Long.getLong("loadtest.seed", 42L));
+		measureMemory(orders);
+		System.exit(0);
+	}
+
+	private static void measureJitter(long tickMs, int wheelSize, int timers, int spreadSeconds, long seed)
+			throws InterruptedException {
+		long startMs = System.currentTimeMillis();
+		long startNanos = System.nanoTime();
+		HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, startMs);
+		Histogram lateness = new ConcurrentHistogram(3);
+		CountDownLatch fired = new CountDownLatch(timers);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+		SplittableRandom random = new SplittableRandom(seed);
+		long spreadMs = TimeUnit.SECONDS.toMillis(spreadSeconds);
+		for (int i = 0; i < timers; i++) {
+			long expirationMs = startMs + 1000 + random.nextLong(spreadMs);
+			wheel.schedule(expirationMs, expirationMs);
+		}
+
+		ticker.scheduleAtFixedRate(() -> {
+			List<Long> due = new ArrayList<>();
+			wheel.advanceClock(System.currentTimeMillis(), due::add);
+			for (Long expirationMs : due) {
+				executor.execute(() -> {
+					long dueNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(expirationMs - startMs);
+					lateness.recordValue(Math.max(0, System.nanoTime() - dueNanos));
+					fired.countDown();
+				});
+			}
+		}, tickMs, tickMs, TimeUnit.MILLISECONDS);
+
+		fired.await(spreadSeconds + 30L, TimeUnit.SECONDS);
+		ticker.shutdownNow();
+		executor.shutdown();
+		log.info("Firing jitter of {} timers over {}s with tick {}ms: p50={}ms p99={}ms p99.9={}ms max={}ms", timers,
+				spreadSeconds, tickMs, millis(lateness.getValueAtPercentile(50)),
+				millis(lateness.getValueAtPercentile(99)), millis(lateness.getValueAtPercentile(99.9)),
+				millis(lateness.getMaxValue()));
+	}
+
+	private static void measureMemory(int orders) {
+		ConfigurableApplicationContext context = SpringApplication.run(ChallengeApplication.class, "--server.port=0",
+				"--logging.level.com.dws.challenge.service=WARN", "--logging.level.com.dws.challenge.web=WARN");
+		try {
+			AccountsService accountsService = context.getBean(AccountsService.class);
+			StandingOrderService standingOrderService = context.getBean(StandingOrderService.class);
+			accountsService.createAccount(new Account("SO-1", new BigDecimal(1000)));
+			accountsService.createAccount(new Account("SO-2", new BigDecimal(1000)));
+			Instant executeAt = Instant.now().plus(1, ChronoUnit.DAYS);
+			BigDecimal amount = BigDecimal.ONE;
+
+			long before = usedHeapAfterGc();
+			long start = System.nanoTime();
+			List<String> orderIds = new ArrayList<>(orders);
+			for (int i = 0; i < orders; i++) {
+				orderIds.add(standingOrderService
+						.register(new StandingOrder("SO-1", "SO-2", amount, executeAt.plusSeconds(i % 86_400), 86_400L))
+						.getOrderId());
+			}
+			double registerSeconds = (System.nanoTime() - start) / 1e9;
+			// the id list is needed for cancelling, its share of the heap is removed from the estimate
+			long idListBytes = 16L + 4L * orders;
+			long after = usedHeapAfterGc();
+
+			start = System.nanoTime();
+			orderIds.forEach(standingOrderService::cancel);
+			double cancelSeconds = (System.nanoTime() - start) / 1e9;
+
+			log.info("{} pending standing orders use ~{} bytes each, registered {}/s, cancelled {}/s", orders,
+					(after - before - idListBytes) / orders, (long) (orders / registerSeconds),
+					(long) (orders / cancelSeconds));
+		} finally {
+			context.close();
+		}
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+}
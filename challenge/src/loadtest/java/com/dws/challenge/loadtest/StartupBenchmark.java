@@ -0,0 +1,238 @@
+package com.dws.challenge.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts the application as a separate JVM, the way a new instance is started when the service scales
+ * out, and measures:
+ * <ul>
+ * <li>time to ready: until {@code /actuator/health/readiness} answers 200</li>
+ * <li>time to first transfer: until the first transfer between two new accounts completed</li>
+ * <li>time to peak: until the closed-loop transfer throughput of a one second interval first reaches
+ * {@code loadtest.peakFraction} of the best interval of the run</li>
+ * </ul>
+ * All times are taken from the moment the process is launched. The plain boot jar is measured, then
+ * the extracted jar with its class data sharing archive and AOT initialization when
+ * {@code loadtest.cdsDirectory} holds one, with and without the transfer warm-up.
+ */
+@Slf4j
+public class StartupBenchmark {
+
+	private static final String TRANSFER_BODY = "{\"accountFrom\":\"S-%d\",\"accountTo\":\"S-%d\",\"amount\":0.01}";
+
+	private final int accounts = Integer.getInteger("loadtest.accounts", 1000);
+
+	private final int clients = Integer.getInteger("loadtest.clients", 16);
+
+	private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 20);
+
+	private final double peakFraction = Double.parseDouble(System.getProperty("loadtest.peakFraction", "0.9"));
+
+	private final List<String> jvmArgs = split(System.getProperty("loadtest.jvmArgs", "-Xms1g -Xmx1g"));
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	public static void main(String[] args) throws Exception {
+		Path jar = Paths.get(System.getProperty("loadtest.jar", "build/libs/challenge-0.0.1-SNAPSHOT.jar"));
+		Path cdsDirectory = Paths.get(System.getProperty("loadtest.cdsDirectory", "build/cds"));
+		int runs = Integer.getInteger("loadtest.runs", 3);
+
+		StartupBenchmark benchmark = new StartupBenchmark();
+		List<Variant> variants = new ArrayList<>();
+		variants.add(new Variant("jar", List.of(), jar, List.of()));
+		Path archive = cdsDirectory.resolve("application.jsa");
+		Path extractedJar = cdsDirectory.resolve("application").resolve(jar.getFileName());
+		if (Files.exists(archive) && Files.exists(extractedJar)) {
+			List<String> cds = List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true");
+			variants.add(new Variant("cds+aot", cds, extractedJar, List.of()));
+			variants.add(new Variant("cds+aot+warmup", cds, extractedJar, List.of("--warmup.enabled=true")));
+		} else {
+			log.info("No class data sharing archive in {}, run ./gradlew cdsArchive to measure it", cdsDirectory);
+		}
+
+		for (Variant variant : variants) {
+			long[][] results = new long[runs][];
+			for (int run = 0; run < runs; run++) {
+				results[run] = benchmark.measure(variant);
+				log.info("{} run {}: ready {}ms, first transfer {}ms, peak {} transfers/s after {}ms", variant.name,
+						run + 1, results[run][0], results[run][1], results[run][2], results[run][3]);
+			}
+			log.info("{} median of {} runs: ready {}ms, first transfer {}ms, peak {} transfers/s after {}ms",
+					variant.name, runs, median(results, 0), median(results, 1), median(results, 2),
+					median(results, 3));
+		}
+	}
+
+	/**
+	 * @return milliseconds to ready, milliseconds to the first transfer, peak transfers per second and
+	 *         milliseconds to the peak
+	 */
+	private long[] measure(Variant variant) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(this.jvmArgs);
+		command.addAll(variant.jvmArgs);
+		command.addAll(List.of("-jar", variant.jar.toString(), "--server.port=" + port,
+				"--management.endpoint.health.probes.enabled=true"));
+		command.addAll(variant.args);
+		String target = "http://localhost:" + port;
+
+		long launched = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		try {
+			URI readiness = URI.create(target + "/actuator/health/readiness");
+			while (status(HttpRequest.newBuilder(readiness).GET().build()) != 200) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException(variant.name + " exited with " + process.exitValue());
+				}
+				Thread.sleep(5);
+			}
+			long ready = System.nanoTime();
+
+			createAccount(target, 0);
+			createAccount(target, 1);
+			if (status(transfer(target, 0, 1)) != 200) {
+				throw new IllegalStateException("First transfer failed");
+			}
+			long firstTransfer = System.nanoTime();
+
+			for (int i = 2; i < this.accounts; i++) {
+				createAccount(target, i);
+			}
+			long loadStart = System.nanoTime();
+			AtomicLongArray completed = drive(target, loadStart);
+
+			int best = 0;
+			for (int second = 1; second < completed.length(); second++) {
+				best = completed.get(second) > completed.get(best) ? second : best;
+			}
+			int peak = 0;
+			while (completed.get(peak) < this.peakFraction * completed.get(best)) {
+				peak++;
+			}
+			long peakReached = loadStart + TimeUnit.SECONDS.toNanos(peak + 1);
+			return new long[] { millis(ready - launched), millis(firstTransfer - launched), completed.get(best),
+					millis(peakReached - launched) };
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+	}
+
+	/**
+	 * Runs closed-loop transfers for the duration, counting the completed ones per second.
+	 */
+	private AtomicLongArray drive(String target, long loadStart) throws InterruptedException {
+		AtomicLongArray completed = new AtomicLongArray(this.durationSeconds);
+		AtomicLong failed = new AtomicLong();
+		long deadline = loadStart + TimeUnit.SECONDS.toNanos(this.durationSeconds);
+		ExecutorService drivers = Executors.newFixedThreadPool(this.clients);
+		for (int c = 0; c < this.clients; c++) {
+			SplittableRandom random = new SplittableRandom(c);
+			drivers.execute(() -> {
+				long now;
+				while ((now = System.nanoTime()) < deadline) {
+					int from = random.nextInt(this.accounts);
+					int to = (from + 1 + random.nextInt(this.accounts - 1)) % this.accounts;
+					if (status(transfer(target, from, to)) == 200) {
+						completed.incrementAndGet((int) TimeUnit.NANOSECONDS.toSeconds(now - loadStart));
+					} else {
+						failed.incrementAndGet();
+					}
+				}
+			});
+		}
+		drivers.shutdown();
+		drivers.awaitTermination(this.durationSeconds + 30, TimeUnit.SECONDS);
+		if (failed.get() > 0) {
+			log.info("{} transfers failed", failed.get());
+		}
+		return completed;
+	}
+
+	private void createAccount(String target, int index) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/v1/accounts"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"accountId\":\"S-" + index + "\",\"balance\":1000000}"))
+				.build();
+		if (status(request) != 201) {
+			throw new IllegalStateException("Could not create account S-" + index);
+		}
+	}
+
+	private static HttpRequest transfer(String target, int from, int to) {
+		return HttpRequest.newBuilder(URI.create(target + "/v1/accounts/fundTransfer"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(String.format(TRANSFER_BODY, from, to))).build();
+	}
+
+	/**
+	 * Status of the response, -1 when the server could not be reached.
+	 */
+	private int status(HttpRequest request) {
+		try {
+			return this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		} catch (IOException e) {
+			return -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static long median(long[][] results, int column) {
+		long[] values = Arrays.stream(results).mapToLong(result -> result[column]).sorted().toArray();
+		return values[values.length / 2];
+	}
+
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	private static List<String> split(String arguments) {
+		return arguments.isBlank() ? List.of() : Arrays.asList(arguments.trim().split("\\s+"));
+	}
+
+	@Value
+	private static class Variant {
+
+		String name;
+
+		List<String> jvmArgs;
+
+		Path jar;
+
+		List<String> args;
+	}
+}
@@ -0,0 +1,206 @@
+package com.dws.challenge.audit;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.LedgerAuditReport;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountLocks;
+import com.dws.challenge.service.LedgerEventListener;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks that transfers never create or destroy money while transfers keep running.
+ * <p>
+ * An audit takes a consistent snapshot of the total balance without stopping the world: accounts are
+ * visited one by one under their {@link AccountLocks} lock and marked as scanned for the current
+ * epoch. A transfer between a scanned and a not yet scanned account would be counted twice or not at
+ * all, so the transfer records a correction for the epoch instead. Outside of an audit a transfer only pays for
+ * one volatile read.
+ * <p>
+ * Stores that can sum their balances consistently on their own, like a database, are asked for that
+ * total instead of being scanned.
+ */
+@Component
+@Slf4j
+public class LedgerAuditor implements LedgerEventListener {
+
+	private final AccountsRepository accountsRepository;
+
+	private final AccountLocks accountLocks;
+
+	private final Object auditLock = new Object();
+
+	/** Money put into the ledger by account creation, guarded by {@code this}. */
+	private BigDecimal expectedTotal = BigDecimal.ZERO;
+
+	private long epochSequence;
+
+	private volatile AuditEpoch activeEpoch;
+
+	@Getter
+	private volatile LedgerAuditReport lastReport;
+
+	public LedgerAuditor(AccountsRepository accountsRepository, AccountLocks accountLocks) {
+		this.accountsRepository = accountsRepository;
+		this.accountLocks = accountLocks;
+	}
+
+	/**
+	 * Money already stored when the application starts is taken as expected.
+	 */
+	@PostConstruct
+	synchronized void seedExpectedTotal() {
+		this.accountsRepository.snapshotTotalBalance()
+				.ifPresent(snapshot -> this.expectedTotal = snapshot.getTotalBalance());
+	}
+
+	@Override
+	public synchronized void accountCreated(Account account) {
+		this.expectedTotal = this.expectedTotal.add(account.getBalance());
+		AuditEpoch epoch = this.activeEpoch;
+		if (epoch != null) {
+			// created after the snapshot was taken, so it is neither expected nor counted
+			epoch.scanned.add(account.getAccountId());
+		}
+	}
+
+	@Override
+	public void transferCompleted(Account accountFrom, Account accountTo, BigDecimal amount) {
+		AuditEpoch epoch = this.activeEpoch;
+		if (epoch == null) {
+			return;
+		}
+		boolean fromScanned = epoch.scanned.contains(accountFrom.getAccountId());
+		boolean toScanned = epoch.scanned.contains(accountTo.getAccountId());
+		if (fromScanned && !toScanned) {
+			// the debit happened after the snapshot, the credit will be counted by the scan
+			epoch.correction.accumulateAndGet(amount.negate(), BigDecimal::add);
+		} else if (!fromScanned && toScanned) {
+			// the debit will be counted by the scan, the credit happened after the snapshot
+			epoch.correction.accumulateAndGet(amount, BigDecimal::add);
+		}
+	}
+
+	@Override
+	public synchronized void accountsCleared() {
+		this.expectedTotal = BigDecimal.ZERO;
+	}
+
+	/**
+	 * The money of a restored ledger is taken as expected, like the money stored at start-up.
+	 */
+	@Override
+	public synchronized void accountsRestored(long sequence, BigDecimal totalBalance) {
+		this.expectedTotal = totalBalance;
+	}
+
+	@Scheduled(fixedDelayString = "${ledger.audit.interval-ms:60000}", initialDelayString = "${ledger.audit.interval-ms:60000}")
+	public void scheduledAudit() {
+		LedgerAuditReport report = audit();
+		if (!report.isBalanced()) {
+			log.warn("Ledger drift detected: {}", report);
+		} else {
+			log.debug("Ledger balanced: {}", report);
+		}
+	}
+
+	/**
+	 * Computes a consistent total of all balances and compares it with the money created through
+	 * account creation. Only one audit runs at a time.
+	 */
+	public LedgerAuditReport audit() {
+		synchronized (this.auditLock) {
+			long start = System.nanoTime();
+			LedgerAuditReport report = snapshotAudit(start);
+			if (report == null) {
+				report = scanAudit(start);
+			}
+			this.lastReport = report;
+			return report;
+		}
+	}
+
+	/**
+	 * Audits against the total computed by the store itself, or returns {@code null} if the store
+	 * cannot compute one. The store total and the expected total are not taken atomically, so an
+	 * account created in between shows up as drift; such an audit is retried a few times before the
+	 * drift is reported.
+	 */
+	private LedgerAuditReport snapshotAudit(long start) {
+		LedgerAuditReport report = null;
+		for (int attempt = 0; attempt < 3 && (report == null || !report.isBalanced()); attempt++) {
+			Optional<BalanceSnapshot> snapshot = this.accountsRepository.snapshotTotalBalance();
+			if (snapshot.isEmpty()) {
+				return null;
+			}
+			long epoch;
+			BigDecimal expected;
+			synchronized (this) {
+				epoch = ++this.epochSequence;
+				expected = this.expectedTotal;
+			}
+			BigDecimal total = snapshot.get().getTotalBalance();
+			report = new LedgerAuditReport(epoch, expected, total, total.subtract(expected),
+					snapshot.get().getAccounts(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+					Instant.now());
+		}
+		return report;
+	}
+
+	private LedgerAuditReport scanAudit(long start) {
+		AuditEpoch epoch;
+		BigDecimal expected;
+		synchronized (this) {
+			epoch = new AuditEpoch(++this.epochSequence);
+			expected = this.expectedTotal;
+			this.activeEpoch = epoch;
+		}
+
+		AtomicReference<BigDecimal> observed = new AtomicReference<>(BigDecimal.ZERO);
+		AtomicLong scanned = new AtomicLong();
+		try {
+			this.accountsRepository.forEachAccount(account -> {
+				synchronized (this.accountLocks.lockFor(account.getAccountId())) {
+					if (epoch.scanned.add(account.getAccountId())) {
+						observed.set(observed.get().add(account.getBalance()));
+						scanned.incrementAndGet();
+					}
+				}
+			});
+		} finally {
+			this.activeEpoch = null;
+		}
+
+		BigDecimal total = observed.get().add(epoch.correction.get());
+		return new LedgerAuditReport(epoch.id, expected, total, total.subtract(expected), scanned.get(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Instant.now());
+	}
+
+	private static final class AuditEpoch {
+
+		private final long id;
+
+		private final Set<String> scanned = ConcurrentHashMap.newKeySet();
+
+		private final AtomicReference<BigDecimal> correction = new AtomicReference<>(BigDecimal.ZERO);
+
+		private AuditEpoch(long id) {
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.dws.challenge.batch;
+
+import java.math.BigDecimal;
+
+/**
+ * What the end-of-day batch knows about one account: its previous closing balance, its balance in
+ * the repository and the journal entries of the day, folded so that entries can be applied in any
+ * order. The activities of a partition are folded by one thread.
+ */
+final class AccountActivity {
+
+	BigDecimal previousClosing;
+
+	BigDecimal repositoryBalance;
+
+	/** Initial balance when the account was created during the day. */
+	BigDecimal created;
+
+	BigDecimal credits = BigDecimal.ZERO;
+
+	BigDecimal debits = BigDecimal.ZERO;
+
+	long transfers;
+
+	long firstSequence = Long.MAX_VALUE;
+
+	/** Balance before the first entry of the day. */
+	BigDecimal firstBalanceBefore;
+
+	long lastSequence = Long.MIN_VALUE;
+
+	/** Balance after the last entry of the day. */
+	BigDecimal lastBalanceAfter;
+
+	void created(long sequence, BigDecimal balance) {
+		this.created = balance;
+		observe(sequence, balance, balance);
+	}
+
+	void debited(long sequence, BigDecimal amount, BigDecimal balanceAfter) {
+		this.debits = this.debits.add(amount);
+		this.transfers++;
+		observe(sequence, balanceAfter.add(amount), balanceAfter);
+	}
+
+	void credited(long sequence, BigDecimal amount, BigDecimal balanceAfter) {
+		this.credits = this.credits.add(amount);
+		this.transfers++;
+		observe(sequence, balanceAfter.subtract(amount), balanceAfter);
+	}
+
+	void previousClosing(BigDecimal balance) {
+		this.previousClosing = balance;
+	}
+
+	void repositoryBalance(BigDecimal balance) {
+		this.repositoryBalance = balance;
+	}
+
+	boolean hasEntries() {
+		return this.lastBalanceAfter != null;
+	}
+
+	private void observe(long sequence, BigDecimal balanceBefore, BigDecimal balanceAfter) {
+		if (sequence < this.firstSequence) {
+			this.firstSequence = sequence;
+			this.firstBalanceBefore = balanceBefore;
+		}
+		if (sequence > this.lastSequence) {
+			this.lastSequence = sequence;
+			this.lastBalanceAfter = balanceAfter;
+		}
+	}
+}
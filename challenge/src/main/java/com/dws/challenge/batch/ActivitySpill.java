@@ -0,0 +1,129 @@
+package com.dws.challenge.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.dws.challenge.replication.TransferLogEntry;
+
+/**
+ * One file per partition that the {@link EndOfDayJob} routes the journal entries, previous closing
+ * balances and repository balances of the partition's accounts to, so that each partition can be
+ * folded on its own. A transfer between two partitions is written to both. Records of a partition
+ * may be written from several threads, each record is written under the lock of its file.
+ */
+final class ActivitySpill implements Closeable {
+
+	private static final int ENTRY = 0;
+
+	private static final int PREVIOUS_CLOSING = 1;
+
+	private static final int REPOSITORY_BALANCE = 2;
+
+	private final Path[] files;
+
+	private final DataOutputStream[] outs;
+
+	ActivitySpill(Path directory, int partitions) throws IOException {
+		Files.createDirectories(directory);
+		this.files = new Path[partitions];
+		this.outs = new DataOutputStream[partitions];
+		for (int i = 0; i < partitions; i++) {
+			this.files[i] = directory.resolve(String.format("spill-%04d.bin", i));
+			this.outs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.files[i]), 1 << 16));
+		}
+	}
+
+	void entry(int partition, TransferLogEntry entry) throws IOException {
+		DataOutputStream out = this.outs[partition];
+		synchronized (out) {
+			out.writeByte(ENTRY);
+			entry.writeTo(out);
+		}
+	}
+
+	void previousClosing(int partition, String accountId, BigDecimal balance) throws IOException {
+		balance(partition, PREVIOUS_CLOSING, accountId, balance);
+	}
+
+	void repositoryBalance(int partition, String accountId, BigDecimal balance) throws IOException {
+		balance(partition, REPOSITORY_BALANCE, accountId, balance);
+	}
+
+	/**
+	 * Streams the records of a closed partition in the order they were written, then deletes its file.
+	 */
+	void fold(int partition, Records records) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(this.files[partition]), 1 << 16))) {
+			while (true) {
+				int type;
+				try {
+					type = in.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				if (type == ENTRY) {
+					records.entry(TransferLogEntry.readFrom(in));
+				} else if (type == PREVIOUS_CLOSING) {
+					records.previousClosing(in.readUTF(), new BigDecimal(in.readUTF()));
+				} else {
+					records.repositoryBalance(in.readUTF(), new BigDecimal(in.readUTF()));
+				}
+			}
+		}
+		Files.delete(this.files[partition]);
+	}
+
+	/**
+	 * Closes the files of all partitions, they can be folded afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (DataOutputStream out : this.outs) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Deletes the files that were not folded, after a failed run.
+	 */
+	void delete() throws IOException {
+		for (Path file : this.files) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void balance(int partition, int type, String accountId, BigDecimal balance) throws IOException {
+		DataOutputStream out = this.outs[partition];
+		synchronized (out) {
+			out.writeByte(type);
+			out.writeUTF(accountId);
+			out.writeUTF(balance.toPlainString());
+		}
+	}
+
+	interface Records {
+
+		void entry(TransferLogEntry entry);
+
+		void previousClosing(String accountId, BigDecimal balance);
+
+		void repositoryBalance(String accountId, BigDecimal balance);
+	}
+}
@@ -0,0 +1,347 @@
+package com.dws.challenge.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.dws.challenge.domain.ReconciliationReport;
+import com.dws.challenge.replication.TransferLogEntry;
+import com.dws.challenge.repository.AccountsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Produces per-account statements and a reconciliation report from the journal of a day.
+ * <p>
+ * Accounts are split into partitions by id. Journal segments, the previous statements and the
+ * repository are read in parallel and routed to one {@link ActivitySpill} file per partition, then
+ * every partition is folded, reconciled and streamed to its own gzip statement file in parallel, all
+ * on a dedicated fork/join pool so online requests keep their threads. Only the accounts of the
+ * partitions being folded are in memory at a time. Closing balances come from the balances the
+ * journal recorded at the cutoff, not from the live repository, so transfers keep running while the
+ * job does. For the same reason an account without journal entries and without a previous statement
+ * is left out: its balance at the cutoff is not known, it appears from the first day it has entries.
+ */
+@Slf4j
+public class EndOfDayJob {
+
+	static final String STATEMENT_HEADER = "accountId,opening,credits,debits,closing,transfers";
+
+	private static final int BREAK_SAMPLES = 20;
+
+	private static final String SPILL_DIRECTORY = "spill";
+
+	private final AccountsRepository accountsRepository;
+
+	private final int partitions;
+
+	private final int parallelism;
+
+	public EndOfDayJob(AccountsRepository accountsRepository, int partitions, int parallelism) {
+		this.accountsRepository = accountsRepository;
+		this.partitions = partitions;
+		this.parallelism = parallelism;
+	}
+
+	public ReconciliationReport run(EndOfDayRequest request) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		LongAdder transfers = new LongAdder();
+		Files.createDirectories(request.getStatementsDirectory());
+
+		ActivitySpill spill = new ActivitySpill(request.getStatementsDirectory().resolve(SPILL_DIRECTORY),
+				this.partitions);
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			try (spill) {
+				inPool(pool, () -> request.getSegments().parallelStream()
+						.forEach(segment -> readSegment(segment, request, spill, transfers)));
+				if (request.getPreviousStatements() != null) {
+					List<Path> parts = statementParts(request.getPreviousStatements());
+					inPool(pool, () -> parts.parallelStream().forEach(part -> readStatements(part, spill)));
+				}
+				this.accountsRepository.forEachAccount(account -> {
+					try {
+						spill.repositoryBalance(partitionOf(account.getAccountId()), account.getAccountId(),
+								account.getBalance());
+					} catch (IOException e) {
+						throw new UncheckedIOException("Writing repository balances failed", e);
+					}
+				});
+			}
+
+			List<PartitionResult> results = new ArrayList<>();
+			inPool(pool, () -> results.addAll(IntStream.range(0, this.partitions).parallel()
+					.mapToObj(partition -> writeStatements(partition, fold(partition, spill),
+							request.getStatementsDirectory()))
+					.collect(Collectors.toList())));
+
+			PartitionResult total = results.stream().reduce(new PartitionResult(), PartitionResult::merge);
+			long durationMillis = (System.nanoTime() - start) / 1_000_000;
+			log.info("End of day up to sequence {}: {} accounts, {} transfers, {} breaks in {}ms",
+					request.getToSequence(), total.accounts, transfers.sum(), total.breaks, durationMillis);
+			return new ReconciliationReport(request.getFromSequence(), request.getToSequence(), request.getCutoff(),
+					total.accounts, transfers.sum(), total.opening, total.credits, total.debits, total.closing,
+					total.breaks, total.breakSamples, request.isJournalComplete(),
+					request.getStatementsDirectory().toString(), durationMillis, Instant.now());
+		} finally {
+			pool.shutdown();
+			spill.delete();
+			Files.deleteIfExists(request.getStatementsDirectory().resolve(SPILL_DIRECTORY));
+		}
+	}
+
+	private void readSegment(JournalSegment segment, EndOfDayRequest request, ActivitySpill spill,
+			LongAdder transfers) {
+		try {
+			segment.forEachEntry(entry -> {
+				if (entry.getSequence() <= request.getFromSequence() || entry.getSequence() > request.getToSequence()) {
+					return;
+				}
+				try {
+					int fromPartition = partitionOf(entry.getAccountFrom());
+					spill.entry(fromPartition, entry);
+					if (entry.getType() == TransferLogEntry.Type.TRANSFER) {
+						int toPartition = partitionOf(entry.getAccountTo());
+						if (toPartition != fromPartition) {
+							spill.entry(toPartition, entry);
+						}
+						transfers.increment();
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException("Spilling journal segment " + segment.getPath() + " failed", e);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Reading journal segment " + segment.getPath() + " failed", e);
+		}
+	}
+
+	private void readStatements(Path part, ActivitySpill spill) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(part), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+			reader.readLine();
+			String line;
+			int[] separators = new int[5];
+			while ((line = reader.readLine()) != null) {
+				// the account id may contain commas, the numeric columns after it cannot
+				int separator = line.length();
+				for (int i = separators.length - 1; i >= 0; i--) {
+					separator = line.lastIndexOf(',', separator - 1);
+					separators[i] = separator;
+				}
+				String accountId = line.substring(0, separators[0]);
+				spill.previousClosing(partitionOf(accountId), accountId,
+						new BigDecimal(line.substring(separators[3] + 1, separators[4])));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Reading statements " + part + " failed", e);
+		}
+	}
+
+	/**
+	 * Folds the spilled records of one partition into the activity of its accounts.
+	 */
+	private Map<String, AccountActivity> fold(int partition, ActivitySpill spill) {
+		Map<String, AccountActivity> accounts = new HashMap<>();
+		try {
+			spill.fold(partition, new ActivitySpill.Records() {
+
+				@Override
+				public void entry(TransferLogEntry entry) {
+					if (entry.getType() == TransferLogEntry.Type.CREATE) {
+						activity(accounts, entry.getAccountFrom()).created(entry.getSequence(), entry.getBalanceFrom());
+						return;
+					}
+					// a transfer between two partitions is spilled to both, each applies its own leg
+					if (partitionOf(entry.getAccountFrom()) == partition) {
+						activity(accounts, entry.getAccountFrom()).debited(entry.getSequence(), entry.getAmount(),
+								entry.getBalanceFrom());
+					}
+					if (partitionOf(entry.getAccountTo()) == partition) {
+						activity(accounts, entry.getAccountTo()).credited(entry.getSequence(), entry.getAmount(),
+								entry.getBalanceTo());
+					}
+				}
+
+				@Override
+				public void previousClosing(String accountId, BigDecimal balance) {
+					activity(accounts, accountId).previousClosing(balance);
+				}
+
+				@Override
+				public void repositoryBalance(String accountId, BigDecimal balance) {
+					activity(accounts, accountId).repositoryBalance(balance);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Folding partition " + partition + " failed", e);
+		}
+		return accounts;
+	}
+
+	private PartitionResult writeStatements(int partition, Map<String, AccountActivity> accounts, Path directory) {
+		PartitionResult result = new PartitionResult();
+		List<String> accountIds = new ArrayList<>(accounts.keySet());
+		Collections.sort(accountIds);
+		Path file = directory.resolve(String.format("part-%04d.csv.gz", partition));
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(Files.newOutputStream(file), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+			writer.write(STATEMENT_HEADER);
+			writer.write('\n');
+			for (String accountId : accountIds) {
+				AccountActivity activity = accounts.get(accountId);
+				if (!activity.hasEntries() && activity.previousClosing == null) {
+					// created after the cutoff, or on the first run untouched since before the journal started:
+					// the repository balance may already include transfers after the cutoff
+					continue;
+				}
+				BigDecimal opening = opening(activity);
+				BigDecimal closing = activity.hasEntries() ? activity.lastBalanceAfter : opening;
+				String problem = check(activity, opening, closing);
+				if (problem != null) {
+					result.addBreak(accountId + ": " + problem);
+				}
+				result.add(opening, activity.credits, activity.debits, closing);
+
+				writer.write(accountId);
+				writer.write(',');
+				writer.write(opening.toPlainString());
+				writer.write(',');
+				writer.write(activity.credits.toPlainString());
+				writer.write(',');
+				writer.write(activity.debits.toPlainString());
+				writer.write(',');
+				writer.write(closing.toPlainString());
+				writer.write(',');
+				writer.write(Long.toString(activity.transfers));
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Writing statements " + file + " failed", e);
+		}
+		return result;
+	}
+
+	/**
+	 * The initial balance of an account created during the day, the previous closing balance, or for
+	 * the first day it appears the balance before its first entry.
+	 */
+	private static BigDecimal opening(AccountActivity activity) {
+		if (activity.created != null) {
+			return activity.created;
+		}
+		if (activity.previousClosing != null) {
+			return activity.previousClosing;
+		}
+		return activity.firstBalanceBefore;
+	}
+
+	private static String check(AccountActivity activity, BigDecimal opening, BigDecimal closing) {
+		if (opening.add(activity.credits).subtract(activity.debits).compareTo(closing) != 0) {
+			return "opening " + opening + " + credits " + activity.credits + " - debits " + activity.debits
+					+ " does not match closing " + closing;
+		}
+		if (activity.hasEntries() && activity.firstBalanceBefore.compareTo(opening) != 0) {
+			return "first entry starts from " + activity.firstBalanceBefore + " instead of opening " + opening;
+		}
+		if (activity.repositoryBalance == null) {
+			return "not in the repository";
+		}
+		return null;
+	}
+
+	private int partitionOf(String accountId) {
+		return (accountId.hashCode() & Integer.MAX_VALUE) % this.partitions;
+	}
+
+	private static AccountActivity activity(Map<String, AccountActivity> accounts, String accountId) {
+		return accounts.computeIfAbsent(accountId, id -> new AccountActivity());
+	}
+
+	static List<Path> statementParts(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("part-")).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static void inPool(ForkJoinPool pool, Runnable task) throws IOException, InterruptedException {
+		try {
+			pool.submit(task).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw new IllegalStateException("End of day job failed", e.getCause());
+		}
+	}
+
+	private static final class PartitionResult {
+
+		private long accounts;
+
+		private long breaks;
+
+		private final List<String> breakSamples = new ArrayList<>();
+
+		private BigDecimal opening = BigDecimal.ZERO;
+
+		private BigDecimal credits = BigDecimal.ZERO;
+
+		private BigDecimal debits = BigDecimal.ZERO;
+
+		private BigDecimal closing = BigDecimal.ZERO;
+
+		private void add(BigDecimal opening, BigDecimal credits, BigDecimal debits, BigDecimal closing) {
+			this.accounts++;
+			this.opening = this.opening.add(opening);
+			this.credits = this.credits.add(credits);
+			this.debits = this.debits.add(debits);
+			this.closing = this.closing.add(closing);
+		}
+
+		private void addBreak(String problem) {
+			this.breaks++;
+			if (this.breakSamples.size() < BREAK_SAMPLES) {
+				this.breakSamples.add(problem);
+			}
+		}
+
+		private PartitionResult merge(PartitionResult other) {
+			this.accounts += other.accounts;
+			this.breaks += other.breaks;
+			for (String sample : other.breakSamples) {
+				if (this.breakSamples.size() < BREAK_SAMPLES) {
+					this.breakSamples.add(sample);
+				}
+			}
+			this.opening = this.opening.add(other.opening);
+			this.credits = this.credits.add(other.credits);
+			this.debits = this.debits.add(other.debits);
+			this.closing = this.closing.add(other.closing);
+			return this;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.dws.challenge.batch;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Input of one end-of-day run: the journal entries after {@code fromSequence} up to and including
+ * {@code toSequence}, and the statements of the previous run, {@code null} for the first run.
+ */
+@Value
+@Builder
+public class EndOfDayRequest {
+
+	long fromSequence;
+
+	long toSequence;
+
+	Instant cutoff;
+
+	List<JournalSegment> segments;
+
+	Path previousStatements;
+
+	Path statementsDirectory;
+
+	@Builder.Default
+	boolean journalComplete = true;
+}
@@ -0,0 +1,138 @@
+package com.dws.challenge.batch;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.ReconciliationReport;
+import com.dws.challenge.replication.TransferLog;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.LedgerEventListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the {@link EndOfDayJob} on {@code eod.cron} or on request. Each run covers the log entries
+ * since the previous cutoff and writes its statements and {@code reconciliation.json} to a new
+ * directory below {@code eod.output-directory}; its closing balances are the opening balances of the
+ * next run. Runs need the {@link TransferJournal}, so they are only possible with {@code eod.enabled}.
+ */
+@Component
+@Slf4j
+public class EndOfDayService implements LedgerEventListener {
+
+	private final TransferLog transferLog;
+
+	private final TransferJournal transferJournal;
+
+	private final AccountsRepository accountsRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final Path outputDirectory;
+
+	private final int partitions;
+
+	private final int parallelism;
+
+	private final long sealTimeoutMillis;
+
+	/** Last log entry covered by the previous run, guarded by {@code this}. */
+	private long lastCutoff;
+
+	private Path previousStatements;
+
+	@Getter
+	private volatile ReconciliationReport lastReport;
+
+	public EndOfDayService(TransferLog transferLog, TransferJournal transferJournal,
+			AccountsRepository accountsRepository, ObjectMapper objectMapper,
+			@Value("${eod.output-directory:${java.io.tmpdir}/fund-transfer/eod}") Path outputDirectory,
+			@Value("${eod.partitions:64}") int partitions, @Value("${eod.parallelism:0}") int parallelism,
+			@Value("${eod.seal-timeout-ms:60000}") long sealTimeoutMillis) {
+		this.transferLog = transferLog;
+		this.transferJournal = transferJournal;
+		this.accountsRepository = accountsRepository;
+		this.objectMapper = objectMapper;
+		this.outputDirectory = outputDirectory;
+		this.partitions = partitions;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.sealTimeoutMillis = sealTimeoutMillis;
+	}
+
+	public boolean isEnabled() {
+		return this.transferJournal.isEnabled();
+	}
+
+	@Scheduled(cron = "${eod.cron:0 0 0 * * *}")
+	void scheduledRun() {
+		if (!isEnabled()) {
+			return;
+		}
+		try {
+			ReconciliationReport report = runEndOfDay();
+			if (!report.isBalanced()) {
+				log.warn("End of day did not reconcile: {}", report);
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("End of day failed", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public synchronized ReconciliationReport runEndOfDay() throws IOException, InterruptedException {
+		long fromSequence = this.lastCutoff;
+		long toSequence = this.transferLog.lastSequence();
+		Instant cutoff = Instant.now();
+		List<JournalSegment> segments = this.transferJournal.seal(toSequence, this.sealTimeoutMillis).stream()
+				.filter(segment -> segment.getLastSequence() > fromSequence
+						&& segment.getFirstSequence() <= toSequence)
+				.collect(Collectors.toList());
+		Path statements = this.outputDirectory.resolve("eod-" + toSequence + "-" + cutoff.toEpochMilli());
+		log.info("Running end of day for log entries {} to {} from {} journal segments", fromSequence + 1,
+				toSequence, segments.size());
+
+		ReconciliationReport report = new EndOfDayJob(this.accountsRepository, this.partitions, this.parallelism)
+				.run(EndOfDayRequest.builder().fromSequence(fromSequence).toSequence(toSequence).cutoff(cutoff)
+						.segments(segments).previousStatements(this.previousStatements)
+						.statementsDirectory(statements)
+						.journalComplete(!this.transferJournal.hasGap(fromSequence + 1, toSequence)).build());
+		this.objectMapper.writerWithDefaultPrettyPrinter().writeValue(statements.resolve("reconciliation.json").toFile(),
+				report);
+
+		this.lastCutoff = toSequence;
+		this.previousStatements = statements;
+		this.transferJournal.deleteUpTo(toSequence);
+		this.lastReport = report;
+		return report;
+	}
+
+	/**
+	 * Cleared accounts are gone from the ledger, the next run starts over without statements.
+	 */
+	@Override
+	public synchronized void accountsCleared() {
+		this.lastCutoff = this.transferLog.lastSequence();
+		this.previousStatements = null;
+	}
+
+	/**
+	 * A restored ledger starts over like a cleared one, entries before the snapshot are not in the
+	 * local log.
+	 */
+	@Override
+	public synchronized void accountsRestored(long sequence, BigDecimal totalBalance) {
+		this.lastCutoff = sequence;
+		this.previousStatements = null;
+	}
+}
@@ -0,0 +1,46 @@
+package com.dws.challenge.batch;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import com.dws.challenge.replication.TransferLogEntry;
+
+import lombok.Value;
+
+/**
+ * Closed journal file holding the log entries from {@code firstSequence} to {@code lastSequence}.
+ */
+@Value
+public class JournalSegment {
+
+	static final String PREFIX = "journal-";
+
+	Path path;
+
+	long firstSequence;
+
+	long lastSequence;
+
+	public JournalSegment(Path directory, long firstSequence, long lastSequence) {
+		this.path = directory.resolve(String.format("%s%020d-%020d.gz", PREFIX, firstSequence, lastSequence));
+		this.firstSequence = firstSequence;
+		this.lastSequence = lastSequence;
+	}
+
+	/**
+	 * Streams the entries of the segment in sequence order.
+	 */
+	public void forEachEntry(Consumer<TransferLogEntry> action) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(this.path), 1 << 16), 1 << 16))) {
+			for (long sequence = this.firstSequence; sequence <= this.lastSequence; sequence++) {
+				action.accept(TransferLogEntry.readFrom(in));
+			}
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package com.dws.challenge.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.exception.LogTruncatedException;
+import com.dws.challenge.replication.TransferLog;
+import com.dws.challenge.replication.TransferLogEntry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies the {@link TransferLog} into gzip compressed segment files for the end-of-day batch.
+ * <p>
+ * A single writer thread follows the log the way a replication follower does, so online transfers
+ * never wait for the disk; it parks in {@link TransferLog#awaitEntry} while there is nothing to
+ * write. A segment is closed after {@code eod.journal.segment-entries} entries or when the batch
+ * seals the journal at its cutoff, only closed segments are read by the batch. The log lives in
+ * memory and restarts with the application, so segments do not outlive it: the directory is kept,
+ * segments left by an earlier run are deleted on start and the instance's own on stop. A lock file
+ * keeps a second instance from sharing the directory.
+ * <p>
+ * Nothing is written unless {@code eod.enabled} is set.
+ */
+@Component
+@Slf4j
+public class TransferJournal {
+
+	private static final int BATCH_SIZE = 4096;
+
+	/** Upper bound of one wait for the log, seals and stops wake the writer right away. */
+	private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static final String LOCK_FILE = "journal.lock";
+
+	private final boolean enabled;
+
+	private final TransferLog transferLog;
+
+	private final Path directory;
+
+	private final int segmentEntries;
+
+	private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+
+	/** Ranges of sequences lost because the writer fell behind the retained log. */
+	private final List<long[]> gaps = new CopyOnWriteArrayList<>();
+
+	private final AtomicReference<SealRequest> sealRequest = new AtomicReference<>();
+
+	private final Thread writer = new Thread(this::run, "transfer-journal");
+
+	private volatile boolean running = true;
+
+	private FileChannel lockChannel;
+
+	private DataOutputStream out;
+
+	private Path activeFile;
+
+	private long activeFirst;
+
+	private long next = 1;
+
+	public TransferJournal(@Value("${eod.enabled:false}") boolean enabled, TransferLog transferLog,
+			@Value("${eod.journal.directory:${java.io.tmpdir}/fund-transfer/journal}") Path directory,
+			@Value("${eod.journal.segment-entries:1000000}") int segmentEntries) {
+		this.enabled = enabled;
+		this.transferLog = transferLog;
+		this.directory = directory;
+		this.segmentEntries = segmentEntries;
+	}
+
+	@PostConstruct
+	void start() throws IOException {
+		if (!this.enabled) {
+			return;
+		}
+		Files.createDirectories(this.directory);
+		FileChannel channel = FileChannel.open(this.directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// held by another instance in this JVM
+			lock = null;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IllegalStateException("Journal directory " + this.directory + " is used by another instance");
+		}
+		this.lockChannel = channel;
+		deleteSegmentFiles();
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	@PreDestroy
+	void stop() throws InterruptedException, IOException {
+		if (this.lockChannel == null) {
+			return;
+		}
+		this.running = false;
+		LockSupport.unpark(this.writer);
+		this.writer.join();
+		this.segments.clear();
+		deleteSegmentFiles();
+		// releases the lock, the directory is kept for the next start
+		this.lockChannel.close();
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Waits until every entry up to {@code sequence} is written and closes the active segment at
+	 * that entry.
+	 *
+	 * @return closed segments in sequence order, the last one ends at {@code sequence}
+	 */
+	public List<JournalSegment> seal(long sequence, long timeoutMillis) throws InterruptedException {
+		if (!this.enabled) {
+			throw new IllegalStateException("Journal is disabled, set eod.enabled");
+		}
+		SealRequest request = new SealRequest(sequence);
+		if (!this.sealRequest.compareAndSet(null, request)) {
+			throw new IllegalStateException("Journal is already being sealed");
+		}
+		LockSupport.unpark(this.writer);
+		try {
+			request.sealed.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Sealing the journal failed", e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Journal did not reach sequence " + sequence + " in time");
+		} finally {
+			this.sealRequest.set(null);
+		}
+		return getSegments();
+	}
+
+	public List<JournalSegment> getSegments() {
+		return new ArrayList<>(this.segments);
+	}
+
+	/**
+	 * @return whether entries between {@code fromSequence} and {@code toSequence}, both inclusive,
+	 *         were lost
+	 */
+	public boolean hasGap(long fromSequence, long toSequence) {
+		return this.gaps.stream().anyMatch(gap -> gap[0] <= toSequence && gap[1] >= fromSequence);
+	}
+
+	/**
+	 * Deletes closed segments that only contain entries up to {@code sequence}.
+	 */
+	public void deleteUpTo(long sequence) {
+		for (JournalSegment segment : this.segments) {
+			if (segment.getLastSequence() <= sequence) {
+				this.segments.remove(segment);
+				try {
+					Files.deleteIfExists(segment.getPath());
+				} catch (IOException e) {
+					log.warn("Deleting journal segment {} failed", segment.getPath(), e);
+				}
+			}
+		}
+	}
+
+	private void deleteSegmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (file.getFileName().toString().startsWith(JournalSegment.PREFIX)) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	private void run() {
+		List<TransferLogEntry> batch = new ArrayList<>(BATCH_SIZE);
+		while (this.running) {
+			try {
+				SealRequest request = this.sealRequest.get();
+				if (request != null && request.sequence < this.next) {
+					roll();
+					request.sealed.complete(null);
+					continue;
+				}
+				int max = request != null ? (int) Math.min(BATCH_SIZE, request.sequence - this.next + 1) : BATCH_SIZE;
+				batch.clear();
+				int read;
+				try {
+					read = this.transferLog.read(this.next, max, batch);
+				} catch (LogTruncatedException e) {
+					long oldest = e.getOldestSequence();
+					log.error("Journal fell behind the transfer log, entries {} to {} are lost", this.next, oldest - 1);
+					roll();
+					this.gaps.add(new long[] { this.next, oldest - 1 });
+					this.next = oldest;
+					continue;
+				}
+				if (read == 0) {
+					this.transferLog.awaitEntry(this.next, IDLE_PARK_NANOS);
+					continue;
+				}
+				for (TransferLogEntry entry : batch) {
+					write(entry);
+				}
+			} catch (IOException e) {
+				log.error("Writing the transfer journal failed", e);
+				SealRequest request = this.sealRequest.get();
+				if (request != null) {
+					request.sealed.completeExceptionally(e);
+				}
+				LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+			}
+		}
+		try {
+			roll();
+		} catch (IOException e) {
+			log.warn("Closing the transfer journal failed", e);
+		}
+	}
+
+	private void write(TransferLogEntry entry) throws IOException {
+		if (this.out == null) {
+			this.activeFirst = entry.getSequence();
+			this.activeFile = this.directory.resolve(JournalSegment.PREFIX + this.activeFirst + ".tmp");
+			// favour keeping up with the log over the size of the segments
+			GZIPOutputStream gzip = new GZIPOutputStream(Files.newOutputStream(this.activeFile), 1 << 16) {
+				{
+					this.def.setLevel(Deflater.BEST_SPEED);
+				}
+			};
+			this.out = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+		}
+		entry.writeTo(this.out);
+		this.next = entry.getSequence() + 1;
+		if (this.next - this.activeFirst >= this.segmentEntries) {
+			roll();
+		}
+	}
+
+	/**
+	 * Closes the active segment, if it has entries.
+	 */
+	private void roll() throws IOException {
+		if (this.out == null) {
+			return;
+		}
+		this.out.close();
+		this.out = null;
+		JournalSegment segment = new JournalSegment(this.directory, this.activeFirst, this.next - 1);
+		Files.move(this.activeFile, segment.getPath(), StandardCopyOption.ATOMIC_MOVE);
+		this.segments.add(segment);
+	}
+
+	private static final class SealRequest {
+
+		private final long sequence;
+
+		private final CompletableFuture<Void> sealed = new CompletableFuture<>();
+
+		private SealRequest(long sequence) {
+			this.sequence = sequence;
+		}
+	}
+}
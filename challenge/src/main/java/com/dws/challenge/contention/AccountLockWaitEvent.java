@@ -0,0 +1,34 @@
+package com.dws.challenge.contention;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a sampled transfer that had to wait for the lock of an account.
+ */
+@Name("com.dws.challenge.AccountLockWait")
+@Label("Account Lock Wait")
+@Category({ "Fund Transfer", "Contention" })
+@Description("Sampled transfer that waited for the lock of an account")
+@StackTrace(false)
+class AccountLockWaitEvent extends Event {
+
+	@Label("Account Id")
+	String accountId;
+
+	@Label("Lock Stripe")
+	int lockStripe;
+
+	@Label("Wait Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long waitTime;
+
+	@Label("Hold Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long holdTime;
+}
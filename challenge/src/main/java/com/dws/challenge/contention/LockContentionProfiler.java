@@ -0,0 +1,174 @@
+package com.dws.challenge.contention;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.HotAccount;
+import com.dws.challenge.domain.HotAccountsReport;
+import com.dws.challenge.service.AccountLocks;
+import com.dws.challenge.service.LedgerEventListener;
+
+/**
+ * Measures how long sampled transfers wait for and hold the account locks of
+ * {@code AccountsService}, and keeps the accounts with the longest waits in {@link SpaceSavingSketch}
+ * shards of fixed capacity.
+ * <p>
+ * One transfer in {@code sampleRate} is measured, the others only pay for a random number. A sampled
+ * transfer is recorded after it released its locks, so the sketch locks never extend the time an
+ * account lock is held. Accounts are spread over shards by id, each shard with its own lock, so
+ * recording transfers of different accounts and the eviction scan of a full shard do not serialize
+ * all sampled transfers. The heavy-hitter guarantee holds per shard: an account with more than
+ * {@code 1 / shardCapacity} of the wait of its shard is tracked.
+ * <p>
+ * The locks are the stripe monitors of {@link AccountLocks}, a wait is charged to the account the
+ * transfer asked for and reported with its stripe. The wait for the second lock is taken while
+ * holding the first one, it is charged to the second account. With {@code jfrEvents} every contended
+ * acquisition of a sampled transfer is also emitted as an {@link AccountLockWaitEvent} when a flight
+ * recording enables it.
+ */
+@Component
+public class LockContentionProfiler implements LedgerEventListener {
+
+	/** Profiler of services created outside of Spring, measures nothing. */
+	public static final LockContentionProfiler DISABLED = new LockContentionProfiler(0, 1, false);
+
+	/** Waits shorter than this are an uncontended lock plus the cost of reading the clock. */
+	static final long CONTENDED_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+	/** Smallest shard, below it the error of the per-shard guarantee outweighs the shorter scans. */
+	private static final int MIN_SHARD_CAPACITY = 32;
+
+	private static final int MAX_SHARDS = 16;
+
+	private final int sampleRate;
+
+	private final int capacity;
+
+	private final boolean jfrEvents;
+
+	// each guarded by itself
+	private final SpaceSavingSketch[] shards;
+
+	private final LongAdder sampledTransfers = new LongAdder();
+
+	private final LongAdder totalWaitNanos = new LongAdder();
+
+	private volatile Instant since = Instant.now();
+
+	public LockContentionProfiler(@Value("${lock-profiler.sample-rate:16}") int sampleRate,
+			@Value("${lock-profiler.capacity:256}") int capacity,
+			@Value("${lock-profiler.jfr-events:true}") boolean jfrEvents) {
+		this.sampleRate = sampleRate;
+		this.jfrEvents = jfrEvents;
+		int shards = Math.max(1, Math.min(MAX_SHARDS, capacity / MIN_SHARD_CAPACITY));
+		int shardCapacity = (capacity + shards - 1) / shards;
+		this.capacity = shardCapacity * shards;
+		this.shards = new SpaceSavingSketch[shards];
+		for (int i = 0; i < shards; i++) {
+			this.shards[i] = new SpaceSavingSketch(shardCapacity);
+		}
+	}
+
+	/**
+	 * Starts measuring a transfer that is about to lock {@code firstAccountId} and then
+	 * {@code secondAccountId}, if it is sampled.
+	 */
+	public LockSample begin(AccountLocks accountLocks, String firstAccountId, String secondAccountId) {
+		if (this.sampleRate <= 0 || ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) {
+			return LockSample.NONE;
+		}
+		return new LockSample(this, firstAccountId, accountLocks.stripe(firstAccountId), secondAccountId,
+				accountLocks.stripe(secondAccountId), System.nanoTime());
+	}
+
+	void record(LockSample sample, long endNanos) {
+		long firstWait = sample.firstAcquiredNanos - sample.startNanos;
+		long secondWait = sample.secondAcquiredNanos - sample.firstAcquiredNanos;
+		long firstHold = endNanos - sample.firstAcquiredNanos;
+		long secondHold = endNanos - sample.secondAcquiredNanos;
+		this.sampledTransfers.increment();
+		this.totalWaitNanos.add(firstWait + secondWait);
+		add(sample.firstAccountId, sample.firstStripe, firstWait, firstHold);
+		add(sample.secondAccountId, sample.secondStripe, secondWait, secondHold);
+		if (this.jfrEvents) {
+			emit(sample.firstAccountId, sample.firstStripe, firstWait, firstHold);
+			emit(sample.secondAccountId, sample.secondStripe, secondWait, secondHold);
+		}
+	}
+
+	/**
+	 * The {@code limit} accounts sampled transfers waited longest for.
+	 */
+	public HotAccountsReport getHotAccounts(int limit) {
+		long totalWait = this.totalWaitNanos.sum();
+		List<SpaceSavingSketch.Counter> top = new ArrayList<>();
+		int tracked = 0;
+		for (SpaceSavingSketch shard : this.shards) {
+			synchronized (shard) {
+				top.addAll(shard.top(limit));
+				tracked += shard.size();
+			}
+		}
+		top.sort(SpaceSavingSketch.BY_WEIGHT);
+		List<HotAccount> accounts = new ArrayList<>();
+		for (SpaceSavingSketch.Counter counter : top.subList(0, Math.min(limit, top.size()))) {
+			accounts.add(new HotAccount(counter.accountId, counter.lockStripe, counter.samples, counter.contended,
+					micros(counter.weight), micros(counter.error), micros(counter.maxWaitNanos),
+					micros(counter.holdNanos), totalWait == 0 ? 0 : Math.min(1, (double) counter.weight / totalWait)));
+		}
+		return new HotAccountsReport(this.sampleRate, this.sampledTransfers.sum(), micros(totalWait), tracked,
+				this.capacity, this.since, accounts);
+	}
+
+	/**
+	 * Starts over. Transfers recorded while the shards are cleared may be kept in part.
+	 */
+	public void reset() {
+		for (SpaceSavingSketch shard : this.shards) {
+			synchronized (shard) {
+				shard.clear();
+			}
+		}
+		this.sampledTransfers.reset();
+		this.totalWaitNanos.reset();
+		this.since = Instant.now();
+	}
+
+	@Override
+	public void accountsCleared() {
+		reset();
+	}
+
+	private void add(String accountId, int lockStripe, long waitNanos, long holdNanos) {
+		int hash = accountId.hashCode();
+		SpaceSavingSketch shard = this.shards[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.shards.length];
+		synchronized (shard) {
+			shard.add(accountId, lockStripe, waitNanos, holdNanos, waitNanos >= CONTENDED_NANOS);
+		}
+	}
+
+	private static void emit(String accountId, int lockStripe, long waitNanos, long holdNanos) {
+		if (waitNanos < CONTENDED_NANOS) {
+			return;
+		}
+		AccountLockWaitEvent event = new AccountLockWaitEvent();
+		if (event.isEnabled()) {
+			event.accountId = accountId;
+			event.lockStripe = lockStripe;
+			event.waitTime = waitNanos;
+			event.holdTime = holdNanos;
+			event.commit();
+		}
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,63 @@
+package com.dws.challenge.contention;
+
+/**
+ * Timestamps of one sampled acquisition of the two account locks of a transfer. Transfers that are
+ * not sampled get {@link #NONE}, whose methods do nothing.
+ */
+public final class LockSample {
+
+	static final LockSample NONE = new LockSample(null, null, 0, null, 0, 0);
+
+	private final LockContentionProfiler profiler;
+
+	final String firstAccountId;
+
+	final int firstStripe;
+
+	final String secondAccountId;
+
+	final int secondStripe;
+
+	final long startNanos;
+
+	long firstAcquiredNanos;
+
+	long secondAcquiredNanos;
+
+	LockSample(LockContentionProfiler profiler, String firstAccountId, int firstStripe, String secondAccountId,
+			int secondStripe, long startNanos) {
+		this.profiler = profiler;
+		this.firstAccountId = firstAccountId;
+		this.firstStripe = firstStripe;
+		this.secondAccountId = secondAccountId;
+		this.secondStripe = secondStripe;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * To be called first thing inside the lock of the first account.
+	 */
+	public void firstAcquired() {
+		if (this.profiler != null) {
+			this.firstAcquiredNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * To be called first thing inside the lock of the second account.
+	 */
+	public void secondAcquired() {
+		if (this.profiler != null) {
+			this.secondAcquiredNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * To be called once both locks are released, whether or not the transfer succeeded.
+	 */
+	public void end() {
+		if (this.profiler != null && this.secondAcquiredNanos != 0) {
+			this.profiler.record(this, System.nanoTime());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.dws.challenge.contention;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving heavy-hitter sketch over lock waits: at most {@code capacity} accounts are tracked,
+ * weighted by the time transfers waited for their lock. An account not tracked while the sketch is
+ * full takes the slot of the account with the least weight and inherits that weight as its error,
+ * so every account whose true weight exceeds {@code totalWeight / capacity} is guaranteed to be
+ * tracked, whatever the number of accounts.
+ * <p>
+ * The least weighted slot is found by a scan, which only happens when an untracked account comes
+ * along on a full sketch. Not thread safe, {@link LockContentionProfiler} guards each of its sketches
+ * with its own lock.
+ */
+class SpaceSavingSketch {
+
+	static final Comparator<Counter> BY_WEIGHT = Comparator.comparingLong((Counter c) -> c.weight).reversed();
+
+	private final int capacity;
+
+	private final Map<String, Counter> counters;
+
+	SpaceSavingSketch(int capacity) {
+		this.capacity = capacity;
+		this.counters = new HashMap<>(capacity * 2);
+	}
+
+	void add(String accountId, int lockStripe, long waitNanos, long holdNanos, boolean contended) {
+		Counter counter = this.counters.get(accountId);
+		if (counter == null) {
+			counter = new Counter(accountId, lockStripe);
+			if (this.counters.size() >= this.capacity) {
+				Counter evicted = this.counters.values().stream().min(Comparator.comparingLong(c -> c.weight)).get();
+				this.counters.remove(evicted.accountId);
+				counter.weight = evicted.weight;
+				counter.error = evicted.weight;
+			}
+			this.counters.put(accountId, counter);
+		}
+		counter.weight += waitNanos;
+		counter.samples++;
+		if (contended) {
+			counter.contended++;
+		}
+		counter.holdNanos += holdNanos;
+		counter.maxWaitNanos = Math.max(counter.maxWaitNanos, waitNanos);
+	}
+
+	/**
+	 * Copies of the {@code limit} counters of highest weight, highest first.
+	 */
+	List<Counter> top(int limit) {
+		List<Counter> top = new ArrayList<>(this.counters.size());
+		for (Counter counter : this.counters.values()) {
+			top.add(counter.copy());
+		}
+		top.sort(BY_WEIGHT);
+		return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+	}
+
+	int size() {
+		return this.counters.size();
+	}
+
+	void clear() {
+		this.counters.clear();
+	}
+
+	/**
+	 * Figures of one account since it took its slot, {@code weight} includes the inherited
+	 * {@code error}.
+	 */
+	static final class Counter {
+
+		final String accountId;
+
+		final int lockStripe;
+
+		long weight;
+
+		long error;
+
+		long samples;
+
+		long contended;
+
+		long holdNanos;
+
+		long maxWaitNanos;
+
+		private Counter(String accountId, int lockStripe) {
+			this.accountId = accountId;
+			this.lockStripe = lockStripe;
+		}
+
+		private Counter copy() {
+			Counter copy = new Counter(this.accountId, this.lockStripe);
+			copy.weight = this.weight;
+			copy.error = this.error;
+			copy.samples = this.samples;
+			copy.contended = this.contended;
+			copy.holdNanos = this.holdNanos;
+			copy.maxWaitNanos = this.maxWaitNanos;
+			return copy;
+		}
+	}
+}
@@ -21,6 +21,10 @@ public class Account {
   @Min(value = 0, message = "Initial balance must be positive.")
   private BigDecimal balance;
 
+  /** Part of the balance reserved by open holds, it cannot be transferred. */
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private BigDecimal heldBalance = BigDecimal.ZERO;
+
   public Account(String accountId) {
     this.accountId = accountId;
     this.balance = BigDecimal.ZERO;
@@ -32,4 +36,12 @@ public class Account {
     this.accountId = accountId;
     this.balance = balance;
   }
+
+  /**
+   * Balance that can still be transferred or reserved.
+   */
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  public BigDecimal getAvailableBalance() {
+    return this.balance.subtract(this.heldBalance);
+  }
 }
@@ -0,0 +1,16 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+
+import lombok.Value;
+
+/**
+ * Number of accounts and sum of their balances, taken at a single point in time.
+ */
+@Value
+public class BalanceSnapshot {
+
+	long accounts;
+
+	BigDecimal totalBalance;
+}
@@ -0,0 +1,52 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * Reservation of {@code amount} on {@code accountFrom} in favour of {@code accountTo}. The amount
+ * stays part of the balance but cannot be transferred until the hold is captured, voided or
+ * expires at {@code expiresAt}.
+ */
+@Data
+public class Hold {
+
+	/** Assigned on authorization, unique across restarts of the instance. */
+	private Long holdId;
+
+	@NotNull
+	@NotEmpty
+	private final String accountFrom;
+
+	@NotNull
+	@NotEmpty
+	private final String accountTo;
+
+	@NotNull
+	@Positive(message = "Amount must be positive number.")
+	private final BigDecimal amount;
+
+	/** Defaults to {@code holds.default-expiry-seconds} from authorization when not set. */
+	private Instant expiresAt;
+
+	@JsonCreator
+	public Hold(@JsonProperty("accountFrom") String accountFrom, @JsonProperty("accountTo") String accountTo,
+			@JsonProperty("amount") BigDecimal amount, @JsonProperty("expiresAt") Instant expiresAt) {
+		this.accountFrom = accountFrom;
+		this.accountTo = accountTo;
+		this.amount = amount;
+		this.expiresAt = expiresAt;
+	}
+
+	public Transaction toTransaction() {
+		return new Transaction(this.accountFrom, this.accountTo, this.amount);
+	}
+}
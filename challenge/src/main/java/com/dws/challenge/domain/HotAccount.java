@@ -0,0 +1,35 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+/**
+ * Lock contention measured on one account by the sampled transfers since it entered the hot-account
+ * sketch. {@code waitMicros} may overestimate the wait of the account by up to
+ * {@code waitErrorMicros}, the wait inherited from the account it displaced.
+ * <p>
+ * Waits are measured on the monitor of the account's {@code lockStripe}, which it shares with the
+ * other account ids of the stripe: an account that is itself rarely used shows up when another
+ * account of its stripe is hot. Such accounts share the same {@code lockStripe} in the report.
+ */
+@Value
+public class HotAccount {
+
+	String accountId;
+
+	int lockStripe;
+
+	long sampledAcquisitions;
+
+	long contendedAcquisitions;
+
+	long waitMicros;
+
+	long waitErrorMicros;
+
+	long maxWaitMicros;
+
+	long holdMicros;
+
+	/** Share of the wait of all sampled transfers spent on this account, between 0 and 1. */
+	double waitShare;
+}
@@ -0,0 +1,28 @@
+package com.dws.challenge.domain;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Accounts the sampled transfers waited longest for, most contended first. Only one transfer in
+ * {@code sampleRate} is measured, multiply the figures by it to estimate the totals.
+ */
+@Value
+public class HotAccountsReport {
+
+	int sampleRate;
+
+	long sampledTransfers;
+
+	long totalWaitMicros;
+
+	int trackedAccounts;
+
+	int capacity;
+
+	Instant since;
+
+	List<HotAccount> accounts;
+}
@@ -0,0 +1,33 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import lombok.Value;
+
+/**
+ * Result of one conservation-of-money audit. {@code expectedTotal} is the money that entered the
+ * ledger through account creation, {@code observedTotal} the consistent sum of all balances at the
+ * start of the audit; any difference means a transfer created or destroyed money.
+ */
+@Value
+public class LedgerAuditReport {
+
+	long epoch;
+
+	BigDecimal expectedTotal;
+
+	BigDecimal observedTotal;
+
+	BigDecimal drift;
+
+	long accountsScanned;
+
+	long durationMillis;
+
+	Instant completedAt;
+
+	public boolean isBalanced() {
+		return this.drift.signum() == 0;
+	}
+}
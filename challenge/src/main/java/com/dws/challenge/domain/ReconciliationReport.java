@@ -0,0 +1,52 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Result of one end-of-day run over the log entries after {@code fromSequence} up to
+ * {@code toSequence}. Every account has to satisfy opening + credits - debits = closing; accounts
+ * that do not, or whose journal entries do not chain up, are counted as breaks.
+ */
+@Value
+public class ReconciliationReport {
+
+	long fromSequence;
+
+	long toSequence;
+
+	Instant cutoff;
+
+	long accounts;
+
+	long transfers;
+
+	BigDecimal openingTotal;
+
+	BigDecimal creditsTotal;
+
+	BigDecimal debitsTotal;
+
+	BigDecimal closingTotal;
+
+	long breaks;
+
+	/** The first breaks found, by account. */
+	List<String> breakSamples;
+
+	/** Whether the journal held every entry of the range. */
+	boolean journalComplete;
+
+	String statements;
+
+	long durationMillis;
+
+	Instant completedAt;
+
+	public boolean isBalanced() {
+		return this.breaks == 0 && this.journalComplete && this.creditsTotal.compareTo(this.debitsTotal) == 0;
+	}
+}
@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+/**
+ * Replication state of this instance. On a follower {@code lagEntries} is how many entries of the
+ * primary log are not applied yet and {@code lagMillis} how old the last applied entry was when it
+ * was applied; both are zero on a primary.
+ */
+@Value
+public class ReplicationStatus {
+
+	String role;
+
+	long lastSequence;
+
+	long primarySequence;
+
+	long lagEntries;
+
+	long lagMillis;
+
+	boolean connected;
+
+	int followers;
+}
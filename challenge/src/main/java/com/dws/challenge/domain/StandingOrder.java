@@ -0,0 +1,60 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * Transfer executed at {@code executeAt} and, when {@code repeatIntervalSeconds} is set, repeated
+ * with that interval until it is cancelled.
+ */
+@Data
+public class StandingOrder {
+
+	private String orderId;
+
+	@NotNull
+	@NotEmpty
+	private final String accountFrom;
+
+	@NotNull
+	@NotEmpty
+	private final String accountTo;
+
+	@NotNull
+	@Positive(message = "Amount must be positive number.")
+	private final BigDecimal amount;
+
+	/** Next execution, moved forward by the scheduler after each execution of a recurring order. */
+	@NotNull
+	private Instant executeAt;
+
+	@Positive(message = "Repeat interval must be positive number.")
+	private final Long repeatIntervalSeconds;
+
+	@JsonCreator
+	public StandingOrder(@JsonProperty("accountFrom") String accountFrom, @JsonProperty("accountTo") String accountTo,
+			@JsonProperty("amount") BigDecimal amount, @JsonProperty("executeAt") Instant executeAt,
+			@JsonProperty("repeatIntervalSeconds") Long repeatIntervalSeconds) {
+		this.accountFrom = accountFrom;
+		this.accountTo = accountTo;
+		this.amount = amount;
+		this.executeAt = executeAt;
+		this.repeatIntervalSeconds = repeatIntervalSeconds;
+	}
+
+	public boolean isRecurring() {
+		return this.repeatIntervalSeconds != null;
+	}
+
+	public Transaction toTransaction() {
+		return new Transaction(this.accountFrom, this.accountTo, this.amount);
+	}
+}
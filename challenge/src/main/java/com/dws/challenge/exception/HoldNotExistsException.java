@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class HoldNotExistsException extends RuntimeException {
+
+	public HoldNotExistsException(String message) {
+		super(message);
+	}
+}
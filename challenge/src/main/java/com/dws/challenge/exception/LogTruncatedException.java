@@ -0,0 +1,15 @@
+package com.dws.challenge.exception;
+
+public class LogTruncatedException extends RuntimeException {
+
+	private final long oldestSequence;
+
+	public LogTruncatedException(long requestedSequence, long oldestSequence) {
+		super("Transfer log entry " + requestedSequence + " is no longer retained, oldest entry is " + oldestSequence);
+		this.oldestSequence = oldestSequence;
+	}
+
+	public long getOldestSequence() {
+		return this.oldestSequence;
+	}
+}
@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class StandingOrderNotExistsException extends RuntimeException {
+
+	public StandingOrderNotExistsException(String message) {
+		super(message);
+	}
+}
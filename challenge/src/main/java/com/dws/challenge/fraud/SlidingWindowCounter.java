@@ -0,0 +1,95 @@
+package com.dws.challenge.fraud;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count and sum of amounts of the last {@code slots} time slots, kept in a ring of slots stamped with
+ * the slot number they belong to. Adding is lock-free apart from a few nanoseconds of spinning when
+ * a thread finds a slot being recycled for a new slot number.
+ * <p>
+ * Reads are not atomic across slots; a sum taken while other threads add may miss their additions,
+ * which is acceptable for velocity rules.
+ */
+class SlidingWindowCounter {
+
+	private static final int EPOCH = 0;
+
+	private static final int COUNT = 1;
+
+	private static final int AMOUNT = 2;
+
+	private static final int FIELDS = 3;
+
+	/** Marks a slot whose counters are being reset. */
+	private static final long RESETTING = -1;
+
+	private final int slots;
+
+	private final AtomicLongArray values;
+
+	SlidingWindowCounter(int slots) {
+		this.slots = slots;
+		this.values = new AtomicLongArray(slots * FIELDS);
+	}
+
+	void add(long slot, long amount) {
+		int base = (int) (slot % this.slots) * FIELDS;
+		while (true) {
+			long epoch = this.values.get(base + EPOCH);
+			if (epoch == slot) {
+				this.values.incrementAndGet(base + COUNT);
+				this.values.addAndGet(base + AMOUNT, amount);
+				return;
+			}
+			if (epoch > slot) {
+				// the ring moved on while this thread was delayed, the addition is out of the window
+				return;
+			}
+			if (epoch == RESETTING) {
+				Thread.onSpinWait();
+			} else if (this.values.compareAndSet(base + EPOCH, epoch, RESETTING)) {
+				this.values.set(base + COUNT, 0);
+				this.values.set(base + AMOUNT, 0);
+				this.values.set(base + EPOCH, slot);
+			}
+		}
+	}
+
+	/**
+	 * Count of the window ending with {@code slot}.
+	 */
+	long count(long slot) {
+		return sum(slot, COUNT);
+	}
+
+	/**
+	 * Sum of amounts of the window ending with {@code slot}.
+	 */
+	long amount(long slot) {
+		return sum(slot, AMOUNT);
+	}
+
+	/**
+	 * Whether nothing was added in the window ending with {@code slot}.
+	 */
+	boolean isIdle(long slot) {
+		for (int i = 0; i < this.slots; i++) {
+			if (this.values.get(i * FIELDS + EPOCH) > slot - this.slots) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long sum(long slot, int field) {
+		long sum = 0;
+		for (int i = 0; i < this.slots; i++) {
+			int base = i * FIELDS;
+			long epoch = this.values.get(base + EPOCH);
+			if (epoch > slot - this.slots && epoch <= slot) {
+				sum += this.values.get(base + field);
+			}
+		}
+		return sum;
+	}
+}
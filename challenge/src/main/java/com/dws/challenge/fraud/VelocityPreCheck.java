@@ -0,0 +1,132 @@
+package com.dws.challenge.fraud;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.exception.TransferRejectedException;
+import com.dws.challenge.service.TransferPreCheck;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rejects transfers that would take the debited account above a number of transfers or a total
+ * amount within a sliding window, e.g. 20 transfers or 10000 per minute.
+ * <p>
+ * Every accepted transfer is counted when it passes the check, whether or not it later succeeds.
+ * Counters are kept per account for at most {@code maxTrackedAccounts} accounts; counters without
+ * activity for a whole window are evicted by a scheduled sweep, and at most once per slot by the
+ * first transfer that finds the structure full, so the check stays constant time while the structure
+ * is full. Transfers of an account that finds the structure full even after eviction are rejected,
+ * the rules never fail open. {@code AccountsService} only runs the check
+ * once both accounts exist, so only real accounts take a counter. The check and the addition are not
+ * atomic, so concurrent transfers of one account can exceed a limit by the number of such transfers.
+ */
+@Component
+@Slf4j
+public class VelocityPreCheck implements TransferPreCheck {
+
+	private static final int SLOTS = 10;
+
+	private static final BigDecimal MAX_MINOR_UNITS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+	private final boolean enabled;
+
+	private final long slotMillis;
+
+	private final long maxCount;
+
+	private final long maxAmount;
+
+	private final int maxTrackedAccounts;
+
+	private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+
+	/** Last slot in which a transfer swept idle counters, at most one sweep per slot. */
+	private final AtomicLong lastEvictedSlot = new AtomicLong(Long.MIN_VALUE);
+
+	public VelocityPreCheck(@Value("${transfer.velocity.enabled:false}") boolean enabled,
+			@Value("${transfer.velocity.window-seconds:60}") long windowSeconds,
+			@Value("${transfer.velocity.max-count:20}") long maxCount,
+			@Value("${transfer.velocity.max-amount:10000}") BigDecimal maxAmount,
+			@Value("${transfer.velocity.max-tracked-accounts:100000}") int maxTrackedAccounts) {
+		this.enabled = enabled;
+		this.slotMillis = Math.max(1, windowSeconds * 1000 / SLOTS);
+		this.maxCount = maxCount;
+		this.maxAmount = toMinorUnits(maxAmount);
+		this.maxTrackedAccounts = maxTrackedAccounts;
+	}
+
+	@Override
+	public void check(Transaction transaction) {
+		if (!this.enabled) {
+			return;
+		}
+		long slot = System.currentTimeMillis() / this.slotMillis;
+		SlidingWindowCounter counter = counter(transaction.getAccountFrom(), slot);
+
+		long amount = toMinorUnits(transaction.getAmount());
+		if (counter.count(slot) + 1 > this.maxCount) {
+			log.info("Rejecting transfer from account {}: more than {} transfers in the window",
+					transaction.getAccountFrom(), this.maxCount);
+			throw new TransferRejectedException("Transfer limit exceeded for account " + transaction.getAccountFrom());
+		}
+		if (counter.amount(slot) > this.maxAmount - amount) {
+			log.info("Rejecting transfer from account {}: amount limit exceeded in the window",
+					transaction.getAccountFrom());
+			throw new TransferRejectedException("Amount limit exceeded for account " + transaction.getAccountFrom());
+		}
+		counter.add(slot, amount);
+	}
+
+	public int getTrackedAccounts() {
+		return this.counters.size();
+	}
+
+	@Scheduled(fixedDelayString = "${transfer.velocity.eviction-interval-ms:60000}")
+	public void evictIdleCounters() {
+		if (this.enabled) {
+			evictIdle(System.currentTimeMillis() / this.slotMillis);
+		}
+	}
+
+	private SlidingWindowCounter counter(String accountId, long slot) {
+		SlidingWindowCounter counter = this.counters.get(accountId);
+		if (counter != null) {
+			return counter;
+		}
+		if (this.counters.size() >= this.maxTrackedAccounts) {
+			long lastEvicted = this.lastEvictedSlot.get();
+			if (lastEvicted < slot && this.lastEvictedSlot.compareAndSet(lastEvicted, slot)) {
+				evictIdle(slot);
+			}
+			if (this.counters.size() >= this.maxTrackedAccounts) {
+				log.warn("Rejecting transfer from account {}: {} accounts already tracked", accountId,
+						this.maxTrackedAccounts);
+				throw new TransferRejectedException("Transfer limit cannot be tracked for account " + accountId);
+			}
+		}
+		return this.counters.computeIfAbsent(accountId, id -> new SlidingWindowCounter(SLOTS));
+	}
+
+	/**
+	 * Removes counters without activity in the window.
+	 */
+	private void evictIdle(long slot) {
+		this.counters.values().removeIf(counter -> counter.isIdle(slot));
+	}
+
+	/**
+	 * Amounts are counted in hundredths, rounded up and capped at {@code Long.MAX_VALUE}.
+	 */
+	private static long toMinorUnits(BigDecimal amount) {
+		return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).min(MAX_MINOR_UNITS).longValue();
+	}
+}
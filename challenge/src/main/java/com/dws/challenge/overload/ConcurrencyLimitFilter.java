@@ -0,0 +1,131 @@
+package com.dws.challenge.overload;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sheds requests to {@code /v1/accounts} above an adaptive concurrency limit with 503 and a
+ * {@code Retry-After} header, before they take a server thread for longer than it takes to answer.
+ * <p>
+ * Reads and writes have separate budgets: writes (transfers, holds, standing orders, new accounts)
+ * can pile up on the locks of a contended account, their budget shrinks when that happens and keeps
+ * them from taking every Tomcat thread, so that reads are still served. Admin and actuator requests
+ * are never limited.
+ * <p>
+ * The limit, the requests in flight and the rejections of each budget are published as
+ * {@code overload.limit}, {@code overload.inflight} and {@code overload.rejected} tagged with
+ * {@code budget}.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private static final String ACCOUNTS_PATH = "/v1/accounts";
+
+	private final boolean enabled;
+
+	private final String retryAfterSeconds;
+
+	private final Budget reads;
+
+	private final Budget transfers;
+
+	public ConcurrencyLimitFilter(@Value("${overload.enabled:true}") boolean enabled,
+			@Value("${overload.read.initial-limit:50}") int readInitialLimit,
+			@Value("${overload.read.max-limit:150}") int readMaxLimit,
+			@Value("${overload.transfer.initial-limit:20}") int transferInitialLimit,
+			@Value("${overload.transfer.max-limit:100}") int transferMaxLimit,
+			@Value("${overload.min-limit:4}") int minLimit,
+			@Value("${overload.window-samples:100}") int windowSamples,
+			@Value("${overload.rtt-tolerance:1.5}") double rttTolerance,
+			@Value("${overload.smoothing:0.2}") double smoothing,
+			@Value("${overload.retry-after-seconds:1}") long retryAfterSeconds,
+			MeterRegistry meterRegistry) {
+		this.enabled = enabled;
+		this.retryAfterSeconds = Long.toString(retryAfterSeconds);
+		this.reads = new Budget("read", new GradientLimiter(readInitialLimit, minLimit, readMaxLimit, windowSamples,
+				rttTolerance, smoothing), meterRegistry);
+		this.transfers = new Budget("transfer", new GradientLimiter(transferInitialLimit, minLimit, transferMaxLimit,
+				windowSamples, rttTolerance, smoothing), meterRegistry);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !this.enabled || !request.getRequestURI().startsWith(ACCOUNTS_PATH);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		Budget budget = HttpMethod.GET.matches(request.getMethod()) ? this.reads : this.transfers;
+		if (!budget.limiter.tryAcquire()) {
+			budget.rejected.increment();
+			log.debug("Shedding {} {}, {} budget limit {} reached", request.getMethod(), request.getRequestURI(),
+					budget.name, budget.limiter.getLimit());
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, this.retryAfterSeconds);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.getWriter().write("Too many concurrent requests, retry later");
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, response);
+			completed = true;
+		} finally {
+			// whatever the chain threw, errors included, the permit goes back
+			if (completed) {
+				budget.limiter.release(System.nanoTime() - start);
+			} else {
+				budget.limiter.releaseIgnored();
+			}
+		}
+	}
+
+	/**
+	 * Starts both budgets over from their initial limits, e.g. after requests that do not represent
+	 * the load such as those of the warm-up.
+	 */
+	public void resetLimits() {
+		this.reads.limiter.reset();
+		this.transfers.limiter.reset();
+	}
+
+	private static final class Budget {
+
+		private final String name;
+
+		private final GradientLimiter limiter;
+
+		private final Counter rejected;
+
+		private Budget(String name, GradientLimiter limiter, MeterRegistry meterRegistry) {
+			this.name = name;
+			this.limiter = limiter;
+			this.rejected = Counter.builder("overload.rejected").tag("budget", name)
+					.description("Requests shed by the concurrency limiter").register(meterRegistry);
+			Gauge.builder("overload.limit", limiter, GradientLimiter::getLimit).tag("budget", name)
+					.description("Current concurrency limit").register(meterRegistry);
+			Gauge.builder("overload.inflight", limiter, GradientLimiter::getInflight).tag("budget", name)
+					.description("Requests in flight").register(meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package com.dws.challenge.overload;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the requests it lets through, in the spirit of
+ * TCP Vegas: while the average round-trip time of a window of requests stays close to its long-term
+ * average the limit grows by about its square root, when requests start queueing and the round-trip
+ * time rises above {@code tolerance} times the long-term average the limit shrinks in proportion.
+ * The new limit of a window is at least half of the old one, and is blended into the old one by
+ * {@code smoothing}, so a window shrinks the limit by at most {@code smoothing} times a half: a
+ * tenth with the default smoothing of 0.2, a half with a smoothing of 1.
+ * <p>
+ * Acquiring never blocks, a request finding {@code limit} requests in flight is rejected at once. The
+ * limit is not raised by windows in which fewer than half of the permits were in use, an idle
+ * service has no evidence that it could take more. The long-term average follows a sustained rise of
+ * the round-trip time slowly, and is pulled down quickly once the round-trip time drops again.
+ */
+class GradientLimiter {
+
+	/** Number of windows the long-term round-trip time is averaged over. */
+	private static final int LONG_WINDOWS = 20;
+
+	private static final double MIN_GRADIENT = 0.5;
+
+	private final double initialLimit;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final int windowSamples;
+
+	private final double tolerance;
+
+	private final double smoothing;
+
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	private volatile int limit;
+
+	// guarded by this
+	private double estimatedLimit;
+
+	private double longRttNanos;
+
+	private long windowRttNanos;
+
+	private int windowCount;
+
+	private int windowMaxInflight;
+
+	GradientLimiter(int initialLimit, int minLimit, int maxLimit, int windowSamples, double tolerance,
+			double smoothing) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.windowSamples = windowSamples;
+		this.tolerance = tolerance;
+		this.smoothing = smoothing;
+		this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.estimatedLimit = this.initialLimit;
+		this.limit = (int) this.estimatedLimit;
+	}
+
+	/**
+	 * Takes a permit if fewer than {@code limit} requests are in flight.
+	 */
+	boolean tryAcquire() {
+		while (true) {
+			int current = this.inflight.get();
+			if (current >= this.limit) {
+				return false;
+			}
+			if (this.inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the permit of a completed request and records its round-trip time.
+	 */
+	void release(long rttNanos) {
+		int inflightBefore = this.inflight.getAndDecrement();
+		sample(rttNanos, inflightBefore);
+	}
+
+	/**
+	 * Returns the permit of a request whose round-trip time says nothing about the load, e.g. one that
+	 * failed before doing its work.
+	 */
+	void releaseIgnored() {
+		this.inflight.decrementAndGet();
+	}
+
+	/**
+	 * Starts over from the initial limit and forgets the round-trip times seen so far, requests in
+	 * flight keep their permits.
+	 */
+	synchronized void reset() {
+		this.estimatedLimit = this.initialLimit;
+		this.limit = (int) this.estimatedLimit;
+		this.longRttNanos = 0;
+		this.windowRttNanos = 0;
+		this.windowCount = 0;
+		this.windowMaxInflight = 0;
+	}
+
+	int getLimit() {
+		return this.limit;
+	}
+
+	int getInflight() {
+		return this.inflight.get();
+	}
+
+	private synchronized void sample(long rttNanos, int inflightBefore) {
+		this.windowRttNanos += rttNanos;
+		this.windowMaxInflight = Math.max(this.windowMaxInflight, inflightBefore);
+		if (++this.windowCount < this.windowSamples) {
+			return;
+		}
+
+		double shortRtt = Math.max(1, (double) this.windowRttNanos / this.windowCount);
+		int maxInflight = this.windowMaxInflight;
+		this.windowRttNanos = 0;
+		this.windowCount = 0;
+		this.windowMaxInflight = 0;
+
+		if (this.longRttNanos == 0) {
+			this.longRttNanos = shortRtt;
+		} else {
+			this.longRttNanos += (shortRtt - this.longRttNanos) / LONG_WINDOWS;
+			if (this.longRttNanos > 2 * shortRtt) {
+				// load went away, do not keep judging new windows against the old latency
+				this.longRttNanos = Math.max(shortRtt, this.longRttNanos * 0.9);
+			}
+		}
+
+		if (maxInflight < this.estimatedLimit / 2) {
+			return;
+		}
+		double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, this.tolerance * this.longRttNanos / shortRtt));
+		double newLimit = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+		newLimit = this.estimatedLimit * (1 - this.smoothing) + newLimit * this.smoothing;
+		this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+		this.limit = (int) this.estimatedLimit;
+	}
+}
@@ -0,0 +1,83 @@
+package com.dws.challenge.replication;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dws.challenge.exception.LogTruncatedException;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Balances of all accounts as of one entry of the {@link TransferLog}, used to bootstrap a follower
+ * whose position is no longer retained by the primary.
+ * <p>
+ * The snapshot is taken while transfers keep running. Accounts are read one by one under their lock,
+ * each balance includes every entry of the account numbered before it was read and none after. The
+ * scan starts after entry {@code start} and ends at entry {@code sequence}; entries in between are
+ * then replayed over the scanned balances. Log entries carry the balances after the change, so the
+ * last entry of an account in that range gives its balance as of {@code sequence}, whether or not
+ * the scan already saw it.
+ */
+final class LedgerSnapshot {
+
+	private static final long UNPUBLISHED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private static final int READ_BATCH = 4096;
+
+	private final long sequence;
+
+	/** One creation entry per account, numbered {@code sequence}. */
+	private final List<TransferLogEntry> accounts;
+
+	private LedgerSnapshot(long sequence, List<TransferLogEntry> accounts) {
+		this.sequence = sequence;
+		this.accounts = accounts;
+	}
+
+	long getSequence() {
+		return this.sequence;
+	}
+
+	List<TransferLogEntry> getAccounts() {
+		return this.accounts;
+	}
+
+	/**
+	 * @throws LogTruncatedException if the log moved more than its capacity during the scan
+	 */
+	static LedgerSnapshot take(AccountsService accountsService, TransferLog transferLog) {
+		long start = transferLog.lastSequence();
+		Map<String, BigDecimal> balances = new LinkedHashMap<>();
+		accountsService.forEachAccount(account -> balances.put(account.getAccountId(), account.getBalance()));
+		long sequence = transferLog.lastSequence();
+
+		List<TransferLogEntry> batch = new ArrayList<>(READ_BATCH);
+		long next = start + 1;
+		while (next <= sequence) {
+			batch.clear();
+			int read = transferLog.read(next, (int) Math.min(READ_BATCH, sequence - next + 1), batch);
+			if (read == 0) {
+				// numbered but still being published
+				LockSupport.parkNanos(UNPUBLISHED_PARK_NANOS);
+				continue;
+			}
+			for (TransferLogEntry entry : batch) {
+				balances.put(entry.getAccountFrom(), entry.getBalanceFrom());
+				if (entry.getType() == TransferLogEntry.Type.TRANSFER) {
+					balances.put(entry.getAccountTo(), entry.getBalanceTo());
+				}
+			}
+			next += read;
+		}
+
+		long timestamp = System.currentTimeMillis();
+		List<TransferLogEntry> accounts = new ArrayList<>(balances.size());
+		balances.forEach((accountId, balance) -> accounts
+				.add(TransferLogEntry.create(sequence, timestamp, accountId, balance)));
+		return new LedgerSnapshot(sequence, accounts);
+	}
+}
@@ -0,0 +1,226 @@
+package com.dws.challenge.replication;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Follower side of replication: reads the log shipped by the primary and hands every entry, in
+ * sequence order and exactly once, to the applier. Reconnects from the last applied entry when the
+ * connection drops. A snapshot sent by the primary in place of entries it no longer retains is
+ * handed to the restorer, the log then continues after it.
+ */
+@Slf4j
+class ReplicationClient {
+
+	private static final long RECONNECT_MILLIS = 1000;
+
+	private final String host;
+
+	private final int port;
+
+	private final Consumer<TransferLogEntry> applier;
+
+	private final ObjLongConsumer<List<TransferLogEntry>> restorer;
+
+	private final Thread thread;
+
+	private volatile boolean running = true;
+
+	private volatile Socket socket;
+
+	private volatile long appliedSequence;
+
+	private volatile long appliedTimestamp;
+
+	private volatile long primarySequence;
+
+	ReplicationClient(String host, int port, long appliedSequence, Consumer<TransferLogEntry> applier,
+			ObjLongConsumer<List<TransferLogEntry>> restorer) {
+		this.host = host;
+		this.port = port;
+		this.appliedSequence = appliedSequence;
+		this.primarySequence = appliedSequence;
+		this.applier = applier;
+		this.restorer = restorer;
+		this.thread = new Thread(this::run, "replication-follower");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	long getAppliedSequence() {
+		return this.appliedSequence;
+	}
+
+	long getPrimarySequence() {
+		return this.primarySequence;
+	}
+
+	/**
+	 * Primary wall clock time of the last applied entry.
+	 */
+	long getAppliedTimestamp() {
+		return this.appliedTimestamp;
+	}
+
+	boolean isConnected() {
+		Socket current = this.socket;
+		return current != null && current.isConnected() && !current.isClosed();
+	}
+
+	/**
+	 * Stops following and waits until the entry being applied, if any, is complete.
+	 */
+	void stop() throws InterruptedException {
+		this.running = false;
+		Socket current = this.socket;
+		if (current != null) {
+			try {
+				current.close();
+			} catch (IOException e) {
+				// closing anyway
+			}
+		}
+		this.thread.interrupt();
+		this.thread.join();
+	}
+
+	private void run() {
+		while (this.running) {
+			try (Socket connection = new Socket()) {
+				connection.connect(new InetSocketAddress(this.host, this.port), 5000);
+				connection.setTcpNoDelay(true);
+				this.socket = connection;
+				DataOutputStream out = new DataOutputStream(connection.getOutputStream());
+				out.writeInt(ReplicationProtocol.MAGIC);
+				out.writeLong(this.appliedSequence);
+				out.flush();
+				log.info("Following primary {}:{} from sequence {}", this.host, this.port, this.appliedSequence + 1);
+				follow(new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16)));
+			} catch (IOException | DataFormatException e) {
+				if (this.running) {
+					log.warn("Replication from {}:{} interrupted: {}", this.host, this.port, e.getMessage());
+				}
+			} catch (RuntimeException e) {
+				// The local ledger no longer matches the primary, applying further entries would
+				// only make it worse
+				log.error("Applying log entry {} failed, stopped following", this.appliedSequence + 1, e);
+				this.running = false;
+			} finally {
+				this.socket = null;
+			}
+			if (this.running) {
+				try {
+					Thread.sleep(RECONNECT_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void follow(DataInputStream in) throws IOException, DataFormatException {
+		FrameReader frames = new FrameReader(in);
+		while (this.running) {
+			int entries = in.readInt();
+			if (entries == ReplicationProtocol.ERROR) {
+				log.error("Primary stopped replication, this follower has to be rebuilt: {}", in.readUTF());
+				this.running = false;
+				return;
+			}
+			if (entries == ReplicationProtocol.SNAPSHOT) {
+				restore(in, frames);
+				continue;
+			}
+
+			DataInputStream entryIn = frames.read();
+			for (int i = 0; i < entries; i++) {
+				TransferLogEntry entry = TransferLogEntry.readFrom(entryIn);
+				if (entry.getSequence() <= this.appliedSequence) {
+					continue;
+				}
+				if (entry.getSequence() != this.appliedSequence + 1) {
+					throw new IOException("Expected log entry " + (this.appliedSequence + 1) + " but received "
+							+ entry.getSequence());
+				}
+				this.applier.accept(entry);
+				this.appliedTimestamp = entry.getTimestamp();
+				this.appliedSequence = entry.getSequence();
+			}
+			this.primarySequence = frames.lastSequence;
+		}
+	}
+
+	private void restore(DataInputStream in, FrameReader frames) throws IOException, DataFormatException {
+		long sequence = in.readLong();
+		int accounts = in.readInt();
+		log.info("Restoring {} accounts from a snapshot of the primary as of sequence {}", accounts, sequence);
+		List<TransferLogEntry> snapshot = new ArrayList<>(accounts);
+		while (snapshot.size() < accounts) {
+			int entries = in.readInt();
+			if (entries <= 0) {
+				throw new IOException("Snapshot ended after " + snapshot.size() + " of " + accounts + " accounts");
+			}
+			DataInputStream entryIn = frames.read();
+			for (int i = 0; i < entries; i++) {
+				snapshot.add(TransferLogEntry.readFrom(entryIn));
+			}
+		}
+		this.restorer.accept(snapshot, sequence);
+		this.appliedSequence = sequence;
+		this.primarySequence = Math.max(frames.lastSequence, sequence);
+	}
+
+	/**
+	 * Reads and inflates the rest of a frame after its entry count, reusing its buffers across frames
+	 * of one connection.
+	 */
+	private static final class FrameReader {
+
+		private final DataInputStream in;
+
+		private final Inflater inflater = new Inflater();
+
+		private byte[] compressed = new byte[1 << 16];
+
+		private byte[] raw = new byte[1 << 16];
+
+		/** Last sequence of the primary when it sent the frame. */
+		private long lastSequence;
+
+		private FrameReader(DataInputStream in) {
+			this.in = in;
+		}
+
+		private DataInputStream read() throws IOException, DataFormatException {
+			this.lastSequence = this.in.readLong();
+			int rawLength = this.in.readInt();
+			int compressedLength = this.in.readInt();
+			if (this.compressed.length < compressedLength) {
+				this.compressed = new byte[compressedLength];
+			}
+			if (this.raw.length < rawLength) {
+				this.raw = new byte[rawLength];
+			}
+			this.in.readFully(this.compressed, 0, compressedLength);
+			this.inflater.reset();
+			this.inflater.setInput(this.compressed, 0, compressedLength);
+			this.inflater.inflate(this.raw, 0, rawLength);
+			return new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(this.raw, rawLength)));
+		}
+	}
+}
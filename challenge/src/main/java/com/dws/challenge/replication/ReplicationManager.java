@@ -0,0 +1,167 @@
+package com.dws.challenge.replication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReplicationStatus;
+import com.dws.challenge.replication.ReplicationRole.Role;
+import com.dws.challenge.service.AccountsService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a hot standby in sync by shipping the {@link TransferLog}.
+ * <p>
+ * A primary serves its log on {@code replication.bind-address}:{@code replication.port}, loopback
+ * unless configured otherwise since followers are not authenticated. A follower connects to
+ * {@code replication.primary-host}:{@code replication.primary-port}, replays every entry through
+ * {@link AccountsService}, which appends it to its own log under the same sequence, and rejects
+ * client writes until it is promoted. Shipping is asynchronous: a transfer is acknowledged before a
+ * follower has it, the status reports how far behind the follower is.
+ * <p>
+ * A follower that starts, or falls, behind the log the primary retains is bootstrapped from a
+ * {@link LedgerSnapshot} of the accounts. Only accounts and their balances are replicated: holds and
+ * standing orders stay on the instance they were created on and are not carried over on promotion.
+ */
+@Component
+@Slf4j
+public class ReplicationManager {
+
+	private final AccountsService accountsService;
+
+	private final TransferLog transferLog;
+
+	private final ReplicationRole role;
+
+	private final String bindAddress;
+
+	private final int port;
+
+	private final String primaryHost;
+
+	private final int primaryPort;
+
+	private final int batchSize;
+
+	private ReplicationServer server;
+
+	private ReplicationClient client;
+
+	private volatile long lagMillis;
+
+	public ReplicationManager(AccountsService accountsService, TransferLog transferLog, ReplicationRole role,
+			@Value("${replication.bind-address:127.0.0.1}") String bindAddress,
+			@Value("${replication.port:18090}") int port,
+			@Value("${replication.primary-host:localhost}") String primaryHost,
+			@Value("${replication.primary-port:18090}") int primaryPort,
+			@Value("${replication.batch-size:1024}") int batchSize) {
+		this.accountsService = accountsService;
+		this.transferLog = transferLog;
+		this.role = role;
+		this.bindAddress = bindAddress;
+		this.port = port;
+		this.primaryHost = primaryHost;
+		this.primaryPort = primaryPort;
+		this.batchSize = batchSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() {
+		if (this.role.get() == Role.PRIMARY) {
+			startServer();
+		} else if (this.role.get() == Role.FOLLOWER) {
+			this.client = new ReplicationClient(this.primaryHost, this.primaryPort, this.transferLog.lastSequence(),
+					this::apply, this::restore);
+		}
+	}
+
+	@PreDestroy
+	public synchronized void stop() throws InterruptedException {
+		if (this.client != null) {
+			this.client.stop();
+			this.client = null;
+		}
+		if (this.server != null) {
+			this.server.stop();
+			this.server = null;
+		}
+	}
+
+	/**
+	 * Turns a follower into a primary: stops applying the old primary's log, accepts writes and
+	 * serves its own log to followers. Entries the old primary committed but had not shipped yet are
+	 * lost.
+	 */
+	public synchronized ReplicationStatus promote() throws InterruptedException {
+		if (this.role.get() == Role.FOLLOWER) {
+			long applied = this.client.getAppliedSequence();
+			this.client.stop();
+			this.client = null;
+			this.transferLog.continueAfter(applied);
+			this.role.set(Role.PRIMARY);
+			startServer();
+			log.info("Promoted to primary after applying sequence {}", applied);
+		}
+		return getStatus();
+	}
+
+	public synchronized ReplicationStatus getStatus() {
+		long last = this.transferLog.lastSequence();
+		if (this.client != null) {
+			long primary = Math.max(this.client.getPrimarySequence(), this.client.getAppliedSequence());
+			return new ReplicationStatus(this.role.get().name(), this.client.getAppliedSequence(), primary,
+					primary - this.client.getAppliedSequence(), this.lagMillis, this.client.isConnected(), 0);
+		}
+		return new ReplicationStatus(this.role.get().name(), last, last, 0, 0, false,
+				this.server != null ? this.server.getFollowers() : 0);
+	}
+
+	/**
+	 * Port the log is served on, differs from {@code replication.port} when that is 0.
+	 */
+	public synchronized int getServerPort() {
+		return this.server != null ? this.server.getPort() : -1;
+	}
+
+	private void startServer() {
+		try {
+			this.server = new ReplicationServer(this.transferLog, InetAddress.getByName(this.bindAddress), this.port,
+					this.batchSize,
+					() -> LedgerSnapshot.take(this.accountsService, this.transferLog));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot serve transfer log on " + this.bindAddress + ":" + this.port, e);
+		}
+	}
+
+	private void apply(TransferLogEntry entry) {
+		switch (entry.getType()) {
+		case CREATE:
+			this.accountsService.replicateAccount(new Account(entry.getAccountFrom(), entry.getBalanceFrom()));
+			break;
+		case TRANSFER:
+			this.accountsService.replicateTransfer(entry.getAccountFrom(), entry.getAccountTo(), entry.getAmount(),
+					entry.getBalanceFrom(), entry.getBalanceTo());
+			break;
+		}
+		this.lagMillis = System.currentTimeMillis() - entry.getTimestamp();
+	}
+
+	private void restore(List<TransferLogEntry> snapshot, long sequence) {
+		List<Account> accounts = new ArrayList<>(snapshot.size());
+		for (TransferLogEntry entry : snapshot) {
+			accounts.add(new Account(entry.getAccountFrom(), entry.getBalanceFrom()));
+		}
+		this.accountsService.restoreAccounts(sequence, accounts);
+		log.info("Restored {} accounts as of sequence {} of the primary", accounts.size(), sequence);
+	}
+}
@@ -0,0 +1,28 @@
+package com.dws.challenge.replication;
+
+/**
+ * Wire format between primary and follower.
+ * <p>
+ * The follower opens the connection and sends {@link #MAGIC} followed by the sequence of the last
+ * entry it applied. The primary then streams frames: number of entries, its own last sequence,
+ * uncompressed length, compressed length and the deflated entries. A frame without entries is a
+ * heartbeat; an entry count of {@link #ERROR} is followed by an error message and ends the stream.
+ * <p>
+ * When the entry after the follower's position is no longer retained, the primary sends
+ * {@link #SNAPSHOT}, the sequence of a {@link LedgerSnapshot} and its number of accounts. The
+ * accounts follow as frames of creation entries numbered with that sequence, then the log continues
+ * after it.
+ */
+final class ReplicationProtocol {
+
+	static final int MAGIC = 0x5245504c;
+
+	static final int ERROR = -1;
+
+	static final int SNAPSHOT = -2;
+
+	static final long HEARTBEAT_MILLIS = 100;
+
+	private ReplicationProtocol() {
+	}
+}
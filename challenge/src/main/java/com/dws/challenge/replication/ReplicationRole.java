@@ -0,0 +1,34 @@
+package com.dws.challenge.replication;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replication role of this instance. A follower only applies the log shipped by its primary and
+ * rejects writes until it is promoted.
+ */
+@Component
+public class ReplicationRole {
+
+	public enum Role {
+		STANDALONE, PRIMARY, FOLLOWER
+	}
+
+	private volatile Role role;
+
+	public ReplicationRole(@Value("${replication.role:standalone}") String role) {
+		this.role = Role.valueOf(role.toUpperCase());
+	}
+
+	public Role get() {
+		return this.role;
+	}
+
+	void set(Role role) {
+		this.role = role;
+	}
+
+	public boolean isWritable() {
+		return this.role != Role.FOLLOWER;
+	}
+}
@@ -0,0 +1,247 @@
+package com.dws.challenge.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+import com.dws.challenge.exception.LogTruncatedException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Primary side of replication: accepts follower connections and streams the {@link TransferLog} to
+ * each of them from the position the follower asked for. Entries are shipped in batches of whatever
+ * is available, up to {@code batchSize}, so a busy primary sends fewer and better compressed frames.
+ * A follower whose position is no longer retained first gets a {@link LedgerSnapshot} from
+ * {@code snapshots}, if there is one.
+ * <p>
+ * Followers are not authenticated, the server only listens on {@code bindAddress}.
+ */
+@Slf4j
+class ReplicationServer {
+
+	/** Snapshots taken in a row for one follower before giving up, the log outran each of them. */
+	private static final int MAX_SNAPSHOTS = 3;
+
+	private final TransferLog transferLog;
+
+	private final int batchSize;
+
+	private final Supplier<LedgerSnapshot> snapshots;
+
+	private final ServerSocket serverSocket;
+
+	private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean running = true;
+
+	ReplicationServer(TransferLog transferLog, InetAddress bindAddress, int port, int batchSize) throws IOException {
+		this(transferLog, bindAddress, port, batchSize, null);
+	}
+
+	ReplicationServer(TransferLog transferLog, InetAddress bindAddress, int port, int batchSize,
+			Supplier<LedgerSnapshot> snapshots) throws IOException {
+		this.transferLog = transferLog;
+		this.batchSize = batchSize;
+		this.snapshots = snapshots;
+		this.serverSocket = new ServerSocket(port, 0, bindAddress);
+		Thread acceptor = new Thread(this::accept, "replication-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		log.info("Shipping transfer log to followers on {}:{}", bindAddress.getHostAddress(), getPort());
+	}
+
+	int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	int getFollowers() {
+		return this.followers.size();
+	}
+
+	void stop() {
+		this.running = false;
+		closeQuietly(this.serverSocket);
+		this.followers.forEach(ReplicationServer::closeQuietly);
+	}
+
+	private void accept() {
+		while (this.running) {
+			try {
+				Socket socket = this.serverSocket.accept();
+				Thread shipper = new Thread(() -> ship(socket), "replication-shipper-" + socket.getPort());
+				shipper.setDaemon(true);
+				shipper.start();
+			} catch (IOException e) {
+				if (this.running) {
+					log.warn("Accepting follower failed", e);
+				}
+			}
+		}
+	}
+
+	private void ship(Socket socket) {
+		this.followers.add(socket);
+		try (socket) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+			if (in.readInt() != ReplicationProtocol.MAGIC) {
+				throw new IOException("Peer is not a replication follower");
+			}
+			long next = in.readLong() + 1;
+			log.info("Follower {} connected, shipping from sequence {}", socket.getRemoteSocketAddress(), next);
+
+			FrameWriter frames = new FrameWriter(out);
+			List<TransferLogEntry> batch = new ArrayList<>(this.batchSize);
+			long lastFrame = System.currentTimeMillis();
+			int snapshotsTaken = 0;
+			while (this.running) {
+				batch.clear();
+				int read;
+				try {
+					read = this.transferLog.read(next, this.batchSize, batch);
+				} catch (LogTruncatedException e) {
+					LedgerSnapshot snapshot = null;
+					while (snapshot == null && this.snapshots != null && snapshotsTaken < MAX_SNAPSHOTS) {
+						snapshotsTaken++;
+						snapshot = takeSnapshot(socket);
+					}
+					if (snapshot == null) {
+						log.error("Follower {} fell behind the retained log: {}", socket.getRemoteSocketAddress(),
+								e.getMessage());
+						out.writeInt(ReplicationProtocol.ERROR);
+						out.writeUTF(e.getMessage());
+						out.flush();
+						return;
+					}
+					shipSnapshot(snapshot, frames, out);
+					lastFrame = System.currentTimeMillis();
+					next = snapshot.getSequence() + 1;
+					continue;
+				}
+				if (read > 0) {
+					snapshotsTaken = 0;
+				}
+
+				long now = System.currentTimeMillis();
+				if (read == 0 && now - lastFrame < ReplicationProtocol.HEARTBEAT_MILLIS) {
+					// parks until the next entry is published or the heartbeat is due
+					this.transferLog.awaitEntry(next,
+							TimeUnit.MILLISECONDS.toNanos(ReplicationProtocol.HEARTBEAT_MILLIS - (now - lastFrame)));
+					continue;
+				}
+				frames.write(batch, this.transferLog.lastSequence());
+				lastFrame = now;
+				next += read;
+			}
+		} catch (SocketException e) {
+			log.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+		} catch (IOException e) {
+			log.warn("Shipping to follower {} failed", socket.getRemoteSocketAddress(), e);
+		} finally {
+			this.followers.remove(socket);
+		}
+	}
+
+	/**
+	 * @return the snapshot, or {@code null} if the log moved on too far while it was taken
+	 */
+	private LedgerSnapshot takeSnapshot(Socket socket) {
+		long start = System.nanoTime();
+		try {
+			LedgerSnapshot snapshot = this.snapshots.get();
+			log.info("Follower {} is behind the retained log, sending {} accounts as of sequence {} taken in {}ms",
+					socket.getRemoteSocketAddress(), snapshot.getAccounts().size(), snapshot.getSequence(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			return snapshot;
+		} catch (LogTruncatedException e) {
+			log.warn("Transfer log outran the snapshot for follower {}: {}", socket.getRemoteSocketAddress(),
+					e.getMessage());
+			return null;
+		}
+	}
+
+	private void shipSnapshot(LedgerSnapshot snapshot, FrameWriter frames, DataOutputStream out) throws IOException {
+		List<TransferLogEntry> accounts = snapshot.getAccounts();
+		out.writeInt(ReplicationProtocol.SNAPSHOT);
+		out.writeLong(snapshot.getSequence());
+		out.writeInt(accounts.size());
+		for (int from = 0; from < accounts.size(); from += this.batchSize) {
+			frames.write(accounts.subList(from, Math.min(accounts.size(), from + this.batchSize)),
+					this.transferLog.lastSequence());
+		}
+		out.flush();
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// closing anyway
+		}
+	}
+
+	/**
+	 * Encodes and deflates batches, reusing its buffers across frames of one connection.
+	 */
+	private static final class FrameWriter {
+
+		private final DataOutputStream out;
+
+		private final ByteArrayOutputStream raw = new ByteArrayOutputStream(1 << 16);
+
+		private final DataOutputStream rawOut = new DataOutputStream(this.raw);
+
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		private byte[] compressed = new byte[1 << 16];
+
+		private FrameWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		private void write(List<TransferLogEntry> batch, long lastSequence) throws IOException {
+			this.raw.reset();
+			for (TransferLogEntry entry : batch) {
+				entry.writeTo(this.rawOut);
+			}
+			this.rawOut.flush();
+			byte[] input = this.raw.toByteArray();
+
+			this.deflater.reset();
+			this.deflater.setInput(input);
+			this.deflater.finish();
+			int length = 0;
+			while (!this.deflater.finished()) {
+				if (length == this.compressed.length) {
+					this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+				}
+				length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+			}
+
+			this.out.writeInt(batch.size());
+			this.out.writeLong(lastSequence);
+			this.out.writeInt(input.length);
+			this.out.writeInt(length);
+			this.out.write(this.compressed, 0, length);
+			this.out.flush();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.dws.challenge.replication;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.LogTruncatedException;
+import com.dws.challenge.service.LedgerEventListener;
+
+/**
+ * In-memory log of committed ledger changes, numbered without gaps.
+ * <p>
+ * Sequence numbers are taken while {@code AccountsService} holds the locks of the accounts involved,
+ * so the log orders the changes of every account the way they were applied. The most recent
+ * {@code replication.log-capacity} entries are retained in a ring; readers such as replication
+ * followers keep their own position and fail with {@link LogTruncatedException} once they fall more
+ * than a ring behind. A follower restored from a snapshot of its primary continues numbering after
+ * the snapshot, the entries before it were never in this log.
+ */
+@Component
+public class TransferLog implements LedgerEventListener {
+
+	private final int mask;
+
+	private final AtomicReferenceArray<TransferLogEntry> ring;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	/** First entry that can be in the log, moved past the entries a restored snapshot replaced. */
+	private volatile long firstSequence = 1;
+
+	/** Readers parked in {@link #awaitEntry}, publishing an entry wakes them. */
+	private final Set<Thread> waiters = new CopyOnWriteArraySet<>();
+
+	public TransferLog(@Value("${replication.log-capacity:262144}") int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Log capacity must be a power of two");
+		}
+		this.mask = capacity - 1;
+		this.ring = new AtomicReferenceArray<>(capacity);
+	}
+
+	@Override
+	public void accountCreated(Account account) {
+		long next = this.sequence.incrementAndGet();
+		publish(TransferLogEntry.create(next, System.currentTimeMillis(), account.getAccountId(), account.getBalance()));
+	}
+
+	@Override
+	public void transferCompleted(Account accountFrom, Account accountTo, BigDecimal amount) {
+		long next = this.sequence.incrementAndGet();
+		publish(TransferLogEntry.transfer(next, System.currentTimeMillis(), accountFrom.getAccountId(),
+				accountTo.getAccountId(), amount, accountFrom.getBalance(), accountTo.getBalance()));
+	}
+
+	/**
+	 * Numbers the next entry after the snapshot. Called on the follower thread, which is the only
+	 * writer of a follower's log.
+	 */
+	@Override
+	public void accountsRestored(long sequence, BigDecimal totalBalance) {
+		for (int i = 0; i < this.ring.length(); i++) {
+			this.ring.set(i, null);
+		}
+		this.firstSequence = sequence + 1;
+		this.sequence.set(sequence);
+		wakeWaiters();
+	}
+
+	/**
+	 * Sequence of the latest entry, entries up to it may still be in the middle of being published.
+	 */
+	public long lastSequence() {
+		return this.sequence.get();
+	}
+
+	/**
+	 * Copies up to {@code max} consecutive entries starting at {@code fromSequence} into {@code out}.
+	 * Stops early at an entry that is not yet published.
+	 *
+	 * @return the number of entries copied
+	 * @throws LogTruncatedException if {@code fromSequence} has already been overwritten
+	 */
+	public int read(long fromSequence, int max, List<TransferLogEntry> out) {
+		long last = this.sequence.get();
+		long oldest = Math.max(this.firstSequence, last - this.ring.length() + 1);
+		if (fromSequence < oldest) {
+			throw new LogTruncatedException(fromSequence, oldest);
+		}
+		int copied = 0;
+		for (long next = fromSequence; next <= last && copied < max; next++) {
+			TransferLogEntry entry = this.ring.get((int) (next & this.mask));
+			if (entry == null || entry.getSequence() < next) {
+				break;
+			}
+			if (entry.getSequence() > next) {
+				throw new LogTruncatedException(next, entry.getSequence());
+			}
+			out.add(entry);
+			copied++;
+		}
+		return copied;
+	}
+
+	/**
+	 * Parks the calling reader until entry {@code sequence} is published, the log is restored, the
+	 * thread is unparked or {@code timeoutNanos} passed, whichever comes first. Readers call it after
+	 * {@link #read} found nothing new instead of polling; writers only pay for it while someone waits.
+	 */
+	public void awaitEntry(long sequence, long timeoutNanos) {
+		Thread reader = Thread.currentThread();
+		this.waiters.add(reader);
+		try {
+			// checked after registering, a publish either sees the reader or is seen here
+			TransferLogEntry entry = this.ring.get((int) (sequence & this.mask));
+			if ((entry == null || entry.getSequence() < sequence) && this.firstSequence <= sequence) {
+				LockSupport.parkNanos(this, timeoutNanos);
+			}
+		} finally {
+			this.waiters.remove(reader);
+		}
+	}
+
+	/**
+	 * Continues numbering after {@code lastSequence}, used when a follower that applied the log of
+	 * its primary up to there is promoted. Entries it applied itself are numbered the same way as on
+	 * the primary, so this only matters when the logs diverged.
+	 */
+	public void continueAfter(long lastSequence) {
+		this.sequence.accumulateAndGet(lastSequence, Math::max);
+	}
+
+	private void publish(TransferLogEntry entry) {
+		this.ring.set((int) (entry.getSequence() & this.mask), entry);
+		wakeWaiters();
+	}
+
+	private void wakeWaiters() {
+		if (!this.waiters.isEmpty()) {
+			for (Thread reader : this.waiters) {
+				LockSupport.unpark(reader);
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.dws.challenge.replication;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import lombok.Value;
+
+/**
+ * One committed change of the ledger. Transfer entries carry the balances after the transfer, so a
+ * follower can verify that it applied the transfer to the same state as the primary.
+ */
+@Value
+public class TransferLogEntry {
+
+	public enum Type {
+		CREATE, TRANSFER
+	}
+
+	Type type;
+
+	long sequence;
+
+	/** Wall clock time of the primary when the change was committed. */
+	long timestamp;
+
+	/** Created account, or debited account of a transfer. */
+	String accountFrom;
+
+	/** Credited account of a transfer, {@code null} for account creation. */
+	String accountTo;
+
+	/** Transferred amount, or initial balance of a created account. */
+	BigDecimal amount;
+
+	BigDecimal balanceFrom;
+
+	BigDecimal balanceTo;
+
+	public static TransferLogEntry create(long sequence, long timestamp, String accountId, BigDecimal balance) {
+		return new TransferLogEntry(Type.CREATE, sequence, timestamp, accountId, null, balance, balance, null);
+	}
+
+	public static TransferLogEntry transfer(long sequence, long timestamp, String accountFrom, String accountTo,
+			BigDecimal amount, BigDecimal balanceFrom, BigDecimal balanceTo) {
+		return new TransferLogEntry(Type.TRANSFER, sequence, timestamp, accountFrom, accountTo, amount, balanceFrom,
+				balanceTo);
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeByte(this.type.ordinal());
+		out.writeLong(this.sequence);
+		out.writeLong(this.timestamp);
+		out.writeUTF(this.accountFrom);
+		writeDecimal(out, this.amount);
+		if (this.type == Type.TRANSFER) {
+			out.writeUTF(this.accountTo);
+			writeDecimal(out, this.balanceFrom);
+			writeDecimal(out, this.balanceTo);
+		}
+	}
+
+	public static TransferLogEntry readFrom(DataInput in) throws IOException {
+		Type type = Type.values()[in.readByte()];
+		long sequence = in.readLong();
+		long timestamp = in.readLong();
+		String accountFrom = in.readUTF();
+		BigDecimal amount = readDecimal(in);
+		if (type == Type.CREATE) {
+			return create(sequence, timestamp, accountFrom, amount);
+		}
+		return transfer(sequence, timestamp, accountFrom, in.readUTF(), amount, readDecimal(in), readDecimal(in));
+	}
+
+	private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		out.writeInt(value.scale());
+		out.writeByte(unscaled.length);
+		out.write(unscaled);
+	}
+
+	private static BigDecimal readDecimal(DataInput in) throws IOException {
+		int scale = in.readInt();
+		byte[] unscaled = new byte[in.readUnsignedByte()];
+		in.readFully(unscaled);
+		return new BigDecimal(new BigInteger(unscaled), scale);
+	}
+}
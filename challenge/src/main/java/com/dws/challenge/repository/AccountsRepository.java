@@ -1,6 +1,11 @@
 package com.dws.challenge.repository;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
 public interface AccountsRepository {
@@ -11,5 +16,30 @@ public interface AccountsRepository {
 
 	Account updateAccount(Account account);
 
+	/**
+	 * Stores both legs of a transfer of {@code amount} as one unit of work: either both balances are
+	 * stored or none. The accounts already carry their new balances; stores that do not share the
+	 * {@link Account} instances with the caller apply {@code amount} to their own copy and update the
+	 * balances of the given accounts with the stored values.
+	 */
+	default void updateAccounts(Account accountFrom, Account accountTo, BigDecimal amount) {
+		updateAccount(accountFrom);
+		updateAccount(accountTo);
+	}
+
 	void clearAccounts();
+
+	/**
+	 * Passes every stored account to the given action. Accounts created or removed concurrently may
+	 * or may not be visited.
+	 */
+	void forEachAccount(Consumer<Account> action);
+
+	/**
+	 * Sum of all balances at a single point in time, for stores that can compute it on their own.
+	 * Stores that cannot return an empty optional and the caller has to take the snapshot itself.
+	 */
+	default Optional<BalanceSnapshot> snapshotTotalBalance() {
+		return Optional.empty();
+	}
 }
@@ -2,7 +2,9 @@ package com.dws.challenge.repository;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
 
@@ -11,6 +13,7 @@ import com.dws.challenge.exception.AccountNotExistsException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
 @Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "memory", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
 	private final Map<String, Account> accounts = new ConcurrentHashMap<>();
@@ -44,4 +47,9 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
 		return account;
 	}
 
+	@Override
+	public void forEachAccount(Consumer<Account> action) {
+		accounts.values().forEach(action);
+	}
+
 }
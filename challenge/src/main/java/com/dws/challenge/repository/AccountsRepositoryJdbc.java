@@ -0,0 +1,203 @@
+package com.dws.challenge.repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.exception.AccountNotExistsException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relational store for accounts, enabled with {@code accounts.repository=jdbc}.
+ * <p>
+ * Both legs of a transfer are committed in one transaction that locks the two rows with
+ * {@code SELECT ... FOR UPDATE} in account id order and writes them in one JDBC batch. The balance
+ * check is repeated against the locked rows, so the database stays consistent even if several
+ * instances share it.
+ * <p>
+ * {@link #getAccount(String)} is served from a read-through cache that is invalidated whenever an
+ * account is written. Callers always get their own copy of a cached account, so the instances cannot
+ * be used as locks; {@code AccountsService} locks the account ids instead.
+ */
+@Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "jdbc")
+@Slf4j
+public class AccountsRepositoryJdbc implements AccountsRepository {
+
+	private static final String INSERT_ACCOUNT = "INSERT INTO account (account_id, balance) VALUES (?, ?)";
+
+	private static final String SELECT_ACCOUNT = "SELECT account_id, balance FROM account WHERE account_id = ?";
+
+	private static final String SELECT_ALL_ACCOUNTS = "SELECT account_id, balance FROM account";
+
+	private static final String LOCK_ACCOUNTS = "SELECT account_id, balance FROM account WHERE account_id IN (?, ?)"
+			+ " ORDER BY account_id FOR UPDATE";
+
+	private static final String UPDATE_BALANCE = "UPDATE account SET balance = ? WHERE account_id = ?";
+
+	private static final String ADD_TO_BALANCE = "UPDATE account SET balance = balance + ? WHERE account_id = ?";
+
+	private static final String SUM_BALANCES = "SELECT COUNT(*), COALESCE(SUM(balance), 0) FROM account";
+
+	private static final String DELETE_ACCOUNTS = "DELETE FROM account";
+
+	private static final RowMapper<Account> ACCOUNT_MAPPER = (resultSet, rowNum) -> new Account(
+			resultSet.getString("account_id"), resultSet.getBigDecimal("balance"));
+
+	private static final int INVALIDATION_STRIPES = 256;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int cacheSize;
+
+	private final Map<String, Account> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Bumped on every write of an account of the stripe, a load only enters the cache if its stripe
+	 * was not written while the row was read.
+	 */
+	private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+	public AccountsRepositoryJdbc(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			@Value("${accounts.jdbc.cache-size:100000}") int cacheSize,
+			@Value("${accounts.jdbc.fetch-size:1000}") int fetchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.transactionTemplate = transactionTemplate;
+		this.cacheSize = cacheSize;
+	}
+
+	@Override
+	public void createAccount(Account account) throws DuplicateAccountIdException {
+		try {
+			this.jdbcTemplate.update(INSERT_ACCOUNT, account.getAccountId(), account.getBalance());
+		} catch (DuplicateKeyException e) {
+			throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+		}
+	}
+
+	@Override
+	public Account getAccount(String accountId) {
+		Account cached = this.cache.get(accountId);
+		if (cached != null) {
+			return copy(cached);
+		}
+
+		int stripe = stripe(accountId);
+		long invalidation = this.invalidations.get(stripe);
+		Account account;
+		try {
+			account = this.jdbcTemplate.queryForObject(SELECT_ACCOUNT, ACCOUNT_MAPPER, accountId);
+		} catch (EmptyResultDataAccessException e) {
+			throw new AccountNotExistsException("Account id " + accountId + " does not exist");
+		}
+		if (this.cache.size() < this.cacheSize) {
+			this.cache.compute(accountId,
+					(id, current) -> this.invalidations.get(stripe) == invalidation ? account : current);
+		}
+		return copy(account);
+	}
+
+	@Override
+	public Account updateAccount(Account account) {
+		try {
+			this.jdbcTemplate.update(UPDATE_BALANCE, account.getBalance(), account.getAccountId());
+		} finally {
+			invalidate(account.getAccountId());
+		}
+		return account;
+	}
+
+	@Override
+	public void updateAccounts(Account accountFrom, Account accountTo, BigDecimal amount) {
+		try {
+			this.transactionTemplate.executeWithoutResult(status -> {
+				Map<String, BigDecimal> balances = new HashMap<>(4);
+				this.jdbcTemplate.query(LOCK_ACCOUNTS,
+						resultSet -> {
+							balances.put(resultSet.getString("account_id"), resultSet.getBigDecimal("balance"));
+						}, accountFrom.getAccountId(), accountTo.getAccountId());
+
+				BigDecimal fromBalance = lockedBalance(balances, accountFrom.getAccountId());
+				BigDecimal toBalance = lockedBalance(balances, accountTo.getAccountId());
+				if (fromBalance.compareTo(amount) != 1) {
+					throw new InsufficientBalanceException("Insufficient balance!");
+				}
+
+				this.jdbcTemplate.batchUpdate(ADD_TO_BALANCE, List.of(
+						new Object[] { amount.negate(), accountFrom.getAccountId() },
+						new Object[] { amount, accountTo.getAccountId() }));
+				accountFrom.setBalance(fromBalance.subtract(amount));
+				accountTo.setBalance(toBalance.add(amount));
+			});
+		} finally {
+			invalidate(accountFrom.getAccountId());
+			invalidate(accountTo.getAccountId());
+		}
+	}
+
+	@Override
+	public void clearAccounts() {
+		this.jdbcTemplate.update(DELETE_ACCOUNTS);
+		this.cache.clear();
+	}
+
+	@Override
+	public void forEachAccount(Consumer<Account> action) {
+		this.jdbcTemplate.query(SELECT_ALL_ACCOUNTS, resultSet -> {
+			action.accept(ACCOUNT_MAPPER.mapRow(resultSet, 0));
+		});
+	}
+
+	/**
+	 * A single statement sees the committed state of all rows at one point in time, and transfers
+	 * commit both legs together, so the sum is consistent without locking the table.
+	 */
+	@Override
+	public Optional<BalanceSnapshot> snapshotTotalBalance() {
+		return Optional.ofNullable(this.jdbcTemplate.queryForObject(SUM_BALANCES,
+				(resultSet, rowNum) -> new BalanceSnapshot(resultSet.getLong(1), resultSet.getBigDecimal(2))));
+	}
+
+	private static BigDecimal lockedBalance(Map<String, BigDecimal> balances, String accountId) {
+		BigDecimal balance = balances.get(accountId);
+		if (balance == null) {
+			throw new AccountNotExistsException("Account id " + accountId + " does not exist");
+		}
+		return balance;
+	}
+
+	private void invalidate(String accountId) {
+		this.invalidations.incrementAndGet(stripe(accountId));
+		this.cache.remove(accountId);
+	}
+
+	private static int stripe(String accountId) {
+		return (accountId.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+	}
+
+	private static Account copy(Account account) {
+		return new Account(account.getAccountId(), account.getBalance());
+	}
+}
@@ -0,0 +1,227 @@
+package com.dws.challenge.scheduler;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding timers with a resolution of one tick.
+ * <p>
+ * The lowest level has {@code wheelSize} buckets of one tick each, every further level covers a full
+ * turn of the level below in one bucket and is created lazily when a timer is scheduled that far
+ * out. Scheduling and cancelling are O(1) and a timer costs one small linked list node, so millions
+ * of pending timers are cheap. Timers of a higher level are cascaded down when the clock reaches
+ * their bucket.
+ * <p>
+ * The wheel does not own a thread: {@link #advanceClock(long, Consumer)} has to be called
+ * periodically and hands every expired payload to the given consumer. Timers never expire before
+ * their expiration time and at most one tick after the clock passed it. All methods are thread
+ * safe.
+ *
+ * @param <T> payload of a timer
+ */
+public class HierarchicalTimingWheel<T> {
+
+	private final Level<T> root;
+
+	private int size;
+
+	public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+		if (tickMs <= 0 || wheelSize < 2) {
+			throw new IllegalArgumentException("Tick must be positive and the wheel needs at least two buckets");
+		}
+		this.root = new Level<>(tickMs, wheelSize, startMs);
+	}
+
+	/**
+	 * Schedules the payload to expire at {@code expirationMs}. A timer that is already due expires
+	 * with the next tick.
+	 *
+	 * @return a handle for {@link #cancel(Timer)}
+	 */
+	public synchronized Timer<T> schedule(T payload, long expirationMs) {
+		Timer<T> timer = new Timer<>(payload, Math.max(expirationMs, this.root.currentTime));
+		this.root.add(timer);
+		this.size++;
+		return timer;
+	}
+
+	/**
+	 * Removes a pending timer.
+	 *
+	 * @return {@code false} if the timer already expired or was cancelled before
+	 */
+	public synchronized boolean cancel(Timer<T> timer) {
+		if (timer.bucket == null) {
+			return false;
+		}
+		timer.unlink();
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Moves the clock forward to {@code nowMs} and passes every timer that expired on the way to
+	 * {@code expired}, in expiration order with tick resolution. The consumer runs while the wheel is
+	 * locked, so it should only collect the payloads.
+	 */
+	public synchronized void advanceClock(long nowMs, Consumer<T> expired) {
+		Level<T> level = this.root;
+		while (level.currentTime + level.tickMs <= nowMs) {
+			expire(level.bucket(level.currentTime), expired);
+			level.currentTime += level.tickMs;
+			if (level.overflow != null && level.currentTime % level.interval == 0) {
+				cascade(level.overflow, level.currentTime, expired);
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * The clock of the wheel, the start of the next tick that expires.
+	 */
+	public synchronized long currentTime() {
+		return this.root.currentTime;
+	}
+
+	private void expire(Bucket<T> bucket, Consumer<T> expired) {
+		Timer<T> timer;
+		while ((timer = bucket.poll()) != null) {
+			this.size--;
+			expired.accept(timer.payload);
+		}
+	}
+
+	/**
+	 * Moves the bucket of a higher level that starts at {@code time} down to the lower levels, after
+	 * the levels above it did the same.
+	 */
+	private void cascade(Level<T> level, long time, Consumer<T> expired) {
+		level.currentTime = time;
+		if (level.overflow != null && time % level.interval == 0) {
+			cascade(level.overflow, time, expired);
+		}
+		Bucket<T> bucket = level.bucket(time);
+		Timer<T> timer;
+		while ((timer = bucket.poll()) != null) {
+			if (!this.root.add(timer)) {
+				this.size--;
+				expired.accept(timer.payload);
+			}
+		}
+	}
+
+	/**
+	 * Handle of a scheduled payload.
+	 */
+	public static final class Timer<T> {
+
+		private final T payload;
+
+		private final long expirationMs;
+
+		private Bucket<T> bucket;
+
+		private Timer<T> previous;
+
+		private Timer<T> next;
+
+		private Timer(T payload, long expirationMs) {
+			this.payload = payload;
+			this.expirationMs = expirationMs;
+		}
+
+		public T getPayload() {
+			return this.payload;
+		}
+
+		public long getExpirationMs() {
+			return this.expirationMs;
+		}
+
+		private void unlink() {
+			this.previous.next = this.next;
+			this.next.previous = this.previous;
+			this.previous = null;
+			this.next = null;
+			this.bucket = null;
+		}
+	}
+
+	private static final class Level<T> {
+
+		private final long tickMs;
+
+		private final int wheelSize;
+
+		private final long interval;
+
+		private final Bucket<T>[] buckets;
+
+		/** Start of the bucket that expires next, always a multiple of the tick. */
+		private long currentTime;
+
+		private Level<T> overflow;
+
+		@SuppressWarnings("unchecked")
+		private Level(long tickMs, int wheelSize, long startMs) {
+			this.tickMs = tickMs;
+			this.wheelSize = wheelSize;
+			this.interval = tickMs * wheelSize;
+			this.currentTime = startMs - startMs % tickMs;
+			this.buckets = new Bucket[wheelSize];
+			for (int i = 0; i < wheelSize; i++) {
+				this.buckets[i] = new Bucket<>();
+			}
+		}
+
+		private Bucket<T> bucket(long time) {
+			return this.buckets[(int) ((time / this.tickMs) % this.wheelSize)];
+		}
+
+		/**
+		 * @return {@code false} if the timer expired already
+		 */
+		private boolean add(Timer<T> timer) {
+			if (timer.expirationMs < this.currentTime) {
+				return false;
+			}
+			if (timer.expirationMs / this.tickMs - this.currentTime / this.tickMs < this.wheelSize) {
+				bucket(timer.expirationMs).add(timer);
+				return true;
+			}
+			if (this.overflow == null) {
+				this.overflow = new Level<>(this.interval, this.wheelSize, this.currentTime);
+			}
+			return this.overflow.add(timer);
+		}
+	}
+
+	private static final class Bucket<T> {
+
+		private final Timer<T> head = new Timer<>(null, 0);
+
+		private Bucket() {
+			this.head.previous = this.head;
+			this.head.next = this.head;
+		}
+
+		private void add(Timer<T> timer) {
+			timer.bucket = this;
+			timer.previous = this.head.previous;
+			timer.next = this.head;
+			this.head.previous.next = timer;
+			this.head.previous = timer;
+		}
+
+		private Timer<T> poll() {
+			Timer<T> first = this.head.next;
+			if (first == this.head) {
+				return null;
+			}
+			first.unlink();
+			return first;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.dws.challenge.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Open holds of one account, kept in parallel arrays that only grow while holds are added, so an
+ * account with a few holds costs a handful of small arrays instead of an object and a map entry per
+ * hold. The instance is also the lock for changes of the account's holds; all methods must be called
+ * while holding it.
+ */
+final class AccountHolds {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private int size;
+
+	private long[] holdIds;
+
+	private long[] expiresAt;
+
+	private BigDecimal[] amounts;
+
+	private String[] payees;
+
+	private BigDecimal total = BigDecimal.ZERO;
+
+	/** Earliest expiry of the open holds, read without the lock by the sweeper. */
+	private volatile long earliestExpiry = Long.MAX_VALUE;
+
+	BigDecimal getTotal() {
+		return this.total;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	long getEarliestExpiry() {
+		return this.earliestExpiry;
+	}
+
+	void add(long holdId, BigDecimal amount, String payee, long expiresAtMs) {
+		if (this.holdIds == null) {
+			this.holdIds = new long[INITIAL_CAPACITY];
+			this.expiresAt = new long[INITIAL_CAPACITY];
+			this.amounts = new BigDecimal[INITIAL_CAPACITY];
+			this.payees = new String[INITIAL_CAPACITY];
+		} else if (this.size == this.holdIds.length) {
+			int capacity = this.size * 2;
+			this.holdIds = Arrays.copyOf(this.holdIds, capacity);
+			this.expiresAt = Arrays.copyOf(this.expiresAt, capacity);
+			this.amounts = Arrays.copyOf(this.amounts, capacity);
+			this.payees = Arrays.copyOf(this.payees, capacity);
+		}
+		this.holdIds[this.size] = holdId;
+		this.expiresAt[this.size] = expiresAtMs;
+		this.amounts[this.size] = amount;
+		this.payees[this.size] = payee;
+		this.size++;
+		this.total = this.total.add(amount);
+		this.earliestExpiry = Math.min(this.earliestExpiry, expiresAtMs);
+	}
+
+	/**
+	 * @return position of the hold, or -1 if it is not open
+	 */
+	int indexOf(long holdId) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.holdIds[i] == holdId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	BigDecimal amountAt(int index) {
+		return this.amounts[index];
+	}
+
+	String payeeAt(int index) {
+		return this.payees[index];
+	}
+
+	/**
+	 * Releases the hold at {@code index}, moving the last hold into its place.
+	 */
+	void removeAt(int index) {
+		this.total = this.total.subtract(this.amounts[index]);
+		int last = --this.size;
+		this.holdIds[index] = this.holdIds[last];
+		this.expiresAt[index] = this.expiresAt[last];
+		this.amounts[index] = this.amounts[last];
+		this.payees[index] = this.payees[last];
+		this.amounts[last] = null;
+		this.payees[last] = null;
+		updateEarliestExpiry();
+	}
+
+	/**
+	 * Releases all holds that expired at {@code nowMs}, compacting the open holds in one pass.
+	 *
+	 * @return the number of released holds
+	 */
+	int expire(long nowMs) {
+		int kept = 0;
+		long earliest = Long.MAX_VALUE;
+		for (int i = 0; i < this.size; i++) {
+			if (this.expiresAt[i] <= nowMs) {
+				this.total = this.total.subtract(this.amounts[i]);
+				continue;
+			}
+			if (kept != i) {
+				this.holdIds[kept] = this.holdIds[i];
+				this.expiresAt[kept] = this.expiresAt[i];
+				this.amounts[kept] = this.amounts[i];
+				this.payees[kept] = this.payees[i];
+			}
+			earliest = Math.min(earliest, this.expiresAt[kept]);
+			kept++;
+		}
+		int expired = this.size - kept;
+		for (int i = kept; i < this.size; i++) {
+			this.amounts[i] = null;
+			this.payees[i] = null;
+		}
+		this.size = kept;
+		this.earliestExpiry = earliest;
+		return expired;
+	}
+
+	private void updateEarliestExpiry() {
+		long earliest = Long.MAX_VALUE;
+		for (int i = 0; i < this.size; i++) {
+			earliest = Math.min(earliest, this.expiresAt[i]);
+		}
+		this.earliestExpiry = earliest;
+	}
+}
@@ -0,0 +1,49 @@
+package com.dws.challenge.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monitors guarding the balances of accounts, one per stripe of account ids. Stores such as the JDBC
+ * one hand out a new {@code Account} on every read, so the instances cannot serve as locks; the
+ * monitor of an account id is the same for every caller, whatever the store, and the memory taken does
+ * not grow with the number of accounts.
+ * <p>
+ * Two locks are always taken in stripe order. Two accounts may share a stripe, the monitor is then
+ * simply entered twice.
+ */
+@Component
+public class AccountLocks {
+
+	public static final int DEFAULT_STRIPES = 4096;
+
+	private final Object[] stripes;
+
+	public AccountLocks(@Value("${accounts.lock-stripes:4096}") int stripes) {
+		this.stripes = new Object[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new Object();
+		}
+	}
+
+	public Object lockFor(String accountId) {
+		return this.stripes[stripe(accountId)];
+	}
+
+	/**
+	 * Whether the lock of {@code accountId} comes before the one of {@code otherAccountId}.
+	 */
+	boolean locksBefore(String accountId, String otherAccountId) {
+		int stripe = stripe(accountId);
+		int otherStripe = stripe(otherAccountId);
+		return stripe != otherStripe ? stripe < otherStripe : accountId.compareTo(otherAccountId) < 0;
+	}
+
+	/**
+	 * Index of the monitor guarding {@code accountId}, shared by every account id of the stripe.
+	 */
+	public int stripe(String accountId) {
+		int hash = accountId.hashCode();
+		return (hash ^ (hash >>> 16)) & (this.stripes.length - 1);
+	}
+}
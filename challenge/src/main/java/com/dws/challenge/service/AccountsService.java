@@ -1,16 +1,32 @@
 package com.dws.challenge.service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
 
 import com.dws.challenge.constants.NotificationConstants;
+import com.dws.challenge.contention.LockContentionProfiler;
+import com.dws.challenge.contention.LockSample;
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
 import com.dws.challenge.domain.Transaction;
 import com.dws.challenge.exception.AccountNotExistsException;
+import com.dws.challenge.exception.HoldNotExistsException;
 import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.replication.ReplicationRole;
 import com.dws.challenge.repository.AccountsRepository;
 
 import lombok.Getter;
@@ -20,6 +36,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AccountsService {
 
+	/** 2024-01-01T00:00:00Z, keeps hold ids below 2^53 so that JSON clients read them exactly. */
+	private static final long HOLD_ID_EPOCH_MS = 1_704_067_200_000L;
+
+	private static final long HOLD_IDS_PER_MS = 4096;
+
 	@Getter
 	private final AccountsRepository accountsRepository;
 
@@ -27,15 +48,149 @@ public class AccountsService {
 		this.accountsRepository = accountsRepository;
 	}
 
+	/**
+	 * Service over {@code accountsRepository} that is not part of the application: no ledger listeners,
+	 * pre-checks, replication or lock profiling, notifications go to {@code notificationService}.
+	 */
+	public static AccountsService detached(AccountsRepository accountsRepository, NotificationService notificationService) {
+		return detached(accountsRepository, notificationService, new AccountLocks(AccountLocks.DEFAULT_STRIPES),
+				List.of());
+	}
+
+	/**
+	 * Detached service that notifies {@code ledgerEventListeners}, which may lock accounts on
+	 * {@code accountLocks}.
+	 */
+	public static AccountsService detached(AccountsRepository accountsRepository, NotificationService notificationService,
+			AccountLocks accountLocks, List<LedgerEventListener> ledgerEventListeners) {
+		AccountsService service = new AccountsService(accountsRepository);
+		service.notificationService = notificationService;
+		service.accountLocks = accountLocks;
+		service.ledgerEventListeners = new ArrayList<>(ledgerEventListeners);
+		return service;
+	}
+
 	@Autowired
 	private NotificationService notificationService;
 
+	@Autowired(required = false)
+	private List<LedgerEventListener> ledgerEventListeners = new ArrayList<>();
+
+	@Autowired(required = false)
+	private List<TransferPreCheck> transferPreChecks = new ArrayList<>();
+
+	@Autowired(required = false)
+	private ReplicationRole replicationRole;
+
+	@Autowired(required = false)
+	private LockContentionProfiler lockProfiler = LockContentionProfiler.DISABLED;
+
+	@Autowired(required = false)
+	private AccountLocks accountLocks = new AccountLocks(AccountLocks.DEFAULT_STRIPES);
+
+	@Value("${holds.default-expiry-seconds:604800}")
+	private long defaultHoldExpirySeconds;
+
+	/**
+	 * Holds per account id, the entry of an account is its lock for changes of its holds. Entries are
+	 * only created by {@link #authorize}, an account without an entry has never had a hold. Holds are
+	 * kept in memory only, also with the jdbc repository, and are released when the instance stops.
+	 */
+	private final Map<String, AccountHolds> holds = new ConcurrentHashMap<>();
+
+	/**
+	 * First hold id of this instance: milliseconds since {@link #HOLD_ID_EPOCH_MS} at start, times
+	 * {@link #HOLD_IDS_PER_MS}. Ids of an earlier start are below it as long as it handed out fewer
+	 * ids than that per millisecond it ran, so a hold lost by a restart is never mistaken for a new one.
+	 */
+	private final long firstHoldId = (System.currentTimeMillis() - HOLD_ID_EPOCH_MS) * HOLD_IDS_PER_MS;
+
+	private final AtomicLong nextHoldId = new AtomicLong(this.firstHoldId);
+
+	/** Entries of {@link #holds} with open holds, the ones the expiry sweep has to look at. */
+	private final Set<AccountHolds> accountsWithHolds = ConcurrentHashMap.newKeySet();
+
 	public void createAccount(Account account) {
-		this.accountsRepository.createAccount(account);
+		checkWritable();
+		storeAccount(account);
+	}
+
+	/**
+	 * Applies an account creation shipped by the replication primary.
+	 */
+	public void replicateAccount(Account account) {
+		storeAccount(account);
+	}
+
+	/**
+	 * Replaces all accounts with a snapshot shipped by the replication primary, taken at its log entry
+	 * {@code sequence}. Readers may see the ledger partly restored meanwhile.
+	 */
+	public void restoreAccounts(long sequence, List<Account> accounts) {
+		this.accountsRepository.clearAccounts();
+		this.holds.clear();
+		this.accountsWithHolds.clear();
+		BigDecimal totalBalance = BigDecimal.ZERO;
+		for (Account account : accounts) {
+			synchronized (this.accountLocks.lockFor(account.getAccountId())) {
+				this.accountsRepository.createAccount(account);
+			}
+			totalBalance = totalBalance.add(account.getBalance());
+		}
+		for (LedgerEventListener listener : this.ledgerEventListeners) {
+			listener.accountsRestored(sequence, totalBalance);
+		}
+	}
+
+	/**
+	 * Visits every account with its lock held and its balance read under the lock, so every change
+	 * of the balance that is visible has been passed to the {@link LedgerEventListener}s.
+	 */
+	public void forEachAccount(Consumer<Account> action) {
+		this.accountsRepository.forEachAccount(stored -> {
+			synchronized (this.accountLocks.lockFor(stored.getAccountId())) {
+				action.accept(this.accountsRepository.getAccount(stored.getAccountId()));
+			}
+		});
+	}
+
+	/**
+	 * Rejects writes while this instance follows a replication primary.
+	 */
+	public void checkWritable() {
+		if (!isWritable()) {
+			throw new ReadOnlyReplicaException("Instance is a read-only replica");
+		}
+	}
+
+	public boolean isWritable() {
+		return this.replicationRole == null || this.replicationRole.isWritable();
+	}
+
+	public void clearAccounts() {
+		this.accountsRepository.clearAccounts();
+		this.holds.clear();
+		this.accountsWithHolds.clear();
+		for (LedgerEventListener listener : this.ledgerEventListeners) {
+			listener.accountsCleared();
+		}
 	}
 
+	/**
+	 * Account as stored, or a copy with the held balance when the account has holds; the stored
+	 * account is never changed by a read.
+	 */
 	public Account getAccount(String accountId) {
-		return this.accountsRepository.getAccount(accountId);
+		Account account = this.accountsRepository.getAccount(accountId);
+		AccountHolds accountHolds = this.holds.get(accountId);
+		if (accountHolds == null) {
+			return account;
+		}
+		Account view = new Account(account.getAccountId(), account.getBalance());
+		synchronized (accountHolds) {
+			view.setHeldBalance(accountHolds.getTotal());
+		}
+		return view;
 	}
 
 	/**
@@ -48,6 +203,7 @@ public class AccountsService {
 		if (transaction.getAccountTo().equals(transaction.getAccountFrom())) {
 			throw new IllegalArgumentException("To and From account should not be same!");
 		}
+		checkWritable();
 
 		log.info("transfer amount : {}", transaction.getAmount());
 		Account fromAccount = this.accountsRepository.getAccount(transaction.getAccountFrom()); // 990
@@ -60,40 +216,281 @@ public class AccountsService {
 			throw new AccountNotExistsException("To Account not found");
 		}
 
-		// To avoid deadlock, lock should be acquired in order. This ordering we can
-		// achieve using hashcode
-		Account firstLock = fromAccount.hashCode() < toAccount.hashCode() ? fromAccount : toAccount;
-		Account secondLock = fromAccount.hashCode() < toAccount.hashCode() ? toAccount : fromAccount;
-
-		synchronized (firstLock) {
-			synchronized (secondLock) {
-				BigDecimal fromAccountBalance = fromAccount.getBalance();
-				BigDecimal toAccountBalance = toAccount.getBalance();
+		// Rejected transfers should not queue up for account locks, unknown accounts are not
+		// checked so that they cannot take up state in the pre-checks
+		for (TransferPreCheck preCheck : this.transferPreChecks) {
+			preCheck.check(transaction);
+		}
 
-				// From Account Balance should be greater than amount to be transfer,
-				// so that does not end up with negative balance
-				if (fromAccountBalance.compareTo(transaction.getAmount()) == 1) {
+		// To avoid deadlock, lock should be acquired in order. The locks belong to the account ids,
+		// not to the instances the store returns, which may be copies
+		String fromId = fromAccount.getAccountId();
+		String toId = toAccount.getAccountId();
+		boolean fromFirst = this.accountLocks.locksBefore(fromId, toId);
+		String firstId = fromFirst ? fromId : toId;
+		String secondId = fromFirst ? toId : fromId;
 
-					// Debit amount
-					fromAccount.setBalance(fromAccountBalance.subtract(transaction.getAmount()));
-					this.accountsRepository.updateAccount(fromAccount);
+		LockSample lockSample = this.lockProfiler.begin(this.accountLocks, firstId, secondId);
+		try {
+			synchronized (this.accountLocks.lockFor(firstId)) {
+				lockSample.firstAcquired();
+				synchronized (this.accountLocks.lockFor(secondId)) {
+					lockSample.secondAcquired();
+					// read again under the locks, every change of the balances happens under them
+					fromAccount = this.accountsRepository.getAccount(fromId);
+					toAccount = this.accountsRepository.getAccount(toId);
+					// Holds change under their own lock only, it has to be held from the check to the debit.
+					// An account without holds gets its entry under the account lock, after this debit
+					AccountHolds fromHolds = this.holds.get(fromId);
+					if (fromHolds == null) {
+						debit(fromAccount, toAccount, transaction.getAmount(), BigDecimal.ZERO);
+					} else {
+						synchronized (fromHolds) {
+							debit(fromAccount, toAccount, transaction.getAmount(), fromHolds.getTotal());
+						}
+					}
 					log.info("updated balance for fromAccount {} : {}", fromAccount.getAccountId(),
 							fromAccount.getBalance());
-
-					// Credit amount
-					toAccount.setBalance(toAccountBalance.add(transaction.getAmount()));
-					this.accountsRepository.updateAccount(toAccount);
 					log.info("updated balance for toAccount {} : {}", toAccount.getAccountId(), toAccount.getBalance());
 
+					for (LedgerEventListener listener : this.ledgerEventListeners) {
+						listener.transferCompleted(fromAccount, toAccount, transaction.getAmount());
+					}
+
 					// send notification
 					log.info("Sending mail to both account holder ...");
 					sendNotification(transaction, fromAccount, toAccount);
+				}
+			}
+		} finally {
+			// recorded once the locks are released, the wait and hold times of sampled transfers
+			lockSample.end();
+		}
+	}
 
-				} else {
-					throw new InsufficientBalanceException("Insufficient balance!");
+	/**
+	 * Reserves the amount of the hold on its debited account. Only the holds lock of the debited
+	 * account is taken, the payee is just checked to exist.
+	 *
+	 * @return the hold with its id and expiry
+	 */
+	public Hold authorize(Hold hold) {
+		if (hold.getAccountTo().equals(hold.getAccountFrom())) {
+			throw new IllegalArgumentException("To and From account should not be same!");
+		}
+		checkWritable();
+		Instant now = Instant.now();
+		if (hold.getExpiresAt() == null) {
+			hold.setExpiresAt(now.plusSeconds(this.defaultHoldExpirySeconds));
+		} else if (!hold.getExpiresAt().isAfter(now)) {
+			throw new IllegalArgumentException("Hold expiry must be in the future!");
+		}
+		this.accountsRepository.getAccount(hold.getAccountTo());
+		this.accountsRepository.getAccount(hold.getAccountFrom());
+		for (TransferPreCheck preCheck : this.transferPreChecks) {
+			preCheck.check(hold.toTransaction());
+		}
+
+		AccountHolds accountHolds = this.holds.get(hold.getAccountFrom());
+		if (accountHolds == null) {
+			// a transfer that found no holds finishes its debit before the entry exists
+			synchronized (this.accountLocks.lockFor(hold.getAccountFrom())) {
+				accountHolds = holdsOf(hold.getAccountFrom());
+			}
+		}
+		synchronized (accountHolds) {
+			// read under the lock, it orders this hold with every debit of the account
+			Account account = this.accountsRepository.getAccount(hold.getAccountFrom());
+			if (account.getBalance().subtract(accountHolds.getTotal()).compareTo(hold.getAmount()) != 1) {
+				throw new InsufficientBalanceException("Insufficient balance!");
+			}
+			hold.setHoldId(this.nextHoldId.getAndIncrement());
+			accountHolds.add(hold.getHoldId(), hold.getAmount(), hold.getAccountTo(), hold.getExpiresAt().toEpochMilli());
+			if (accountHolds.size() == 1) {
+				this.accountsWithHolds.add(accountHolds);
+			}
+		}
+		log.info("Authorized hold {} of {} on account {}", hold.getHoldId(), hold.getAmount(), hold.getAccountFrom());
+		return hold;
+	}
+
+	/**
+	 * Transfers {@code amount} of a hold, or all of it when {@code amount} is {@code null}, to its
+	 * payee and releases the hold. Listeners see the capture as a transfer.
+	 */
+	public void capture(String accountId, long holdId, BigDecimal amount) {
+		if (amount != null && amount.signum() <= 0) {
+			throw new IllegalArgumentException("Amount must be positive number.");
+		}
+		checkWritable();
+		AccountHolds accountHolds = existingHoldsOf(accountId, holdId);
+		String payee;
+		synchronized (accountHolds) {
+			payee = accountHolds.payeeAt(indexOfHold(accountHolds, accountId, holdId));
+		}
+
+		this.accountsRepository.getAccount(accountId);
+		this.accountsRepository.getAccount(payee);
+		boolean fromFirst = this.accountLocks.locksBefore(accountId, payee);
+		String firstId = fromFirst ? accountId : payee;
+		String secondId = fromFirst ? payee : accountId;
+
+		BigDecimal captured;
+		LockSample lockSample = this.lockProfiler.begin(this.accountLocks, firstId, secondId);
+		try {
+			synchronized (this.accountLocks.lockFor(firstId)) {
+				lockSample.firstAcquired();
+				synchronized (this.accountLocks.lockFor(secondId)) {
+					lockSample.secondAcquired();
+					Account fromAccount = this.accountsRepository.getAccount(accountId);
+					Account toAccount = this.accountsRepository.getAccount(payee);
+					synchronized (accountHolds) {
+						// the hold may have been voided or expired since it was looked up
+						int index = indexOfHold(accountHolds, accountId, holdId);
+						captured = amount != null ? amount : accountHolds.amountAt(index);
+						if (captured.compareTo(accountHolds.amountAt(index)) > 0) {
+							throw new IllegalArgumentException("Capture amount exceeds the held amount!");
+						}
+
+						fromAccount.setBalance(fromAccount.getBalance().subtract(captured));
+						toAccount.setBalance(toAccount.getBalance().add(captured));
+						this.accountsRepository.updateAccounts(fromAccount, toAccount, captured);
+						releaseHold(accountHolds, index);
+					}
+					log.info("Captured {} of hold {} on account {}", captured, holdId, accountId);
+
+					for (LedgerEventListener listener : this.ledgerEventListeners) {
+						listener.transferCompleted(fromAccount, toAccount, captured);
+					}
+					sendNotification(new Transaction(accountId, payee, captured), fromAccount, toAccount);
+				}
+			}
+		} finally {
+			lockSample.end();
+		}
+	}
+
+	/**
+	 * Releases a hold without transferring anything.
+	 */
+	public void voidHold(String accountId, long holdId) {
+		checkWritable();
+		AccountHolds accountHolds = existingHoldsOf(accountId, holdId);
+		synchronized (accountHolds) {
+			releaseHold(accountHolds, indexOfHold(accountHolds, accountId, holdId));
+		}
+		log.info("Voided hold {} on account {}", holdId, accountId);
+	}
+
+	/**
+	 * Releases expired holds. Only accounts whose earliest hold has expired are locked.
+	 */
+	@Scheduled(fixedDelayString = "${holds.sweep-interval-ms:1000}")
+	public void expireHolds() {
+		long now = System.currentTimeMillis();
+		int expired = 0;
+		for (AccountHolds accountHolds : this.accountsWithHolds) {
+			if (accountHolds.getEarliestExpiry() <= now) {
+				synchronized (accountHolds) {
+					expired += accountHolds.expire(now);
+					if (accountHolds.size() == 0) {
+						this.accountsWithHolds.remove(accountHolds);
+					}
 				}
 			}
 		}
+		if (expired > 0) {
+			log.info("Released {} expired holds", expired);
+		}
+	}
+
+	/**
+	 * Applies a transfer shipped by the replication primary. The balances are taken from the primary,
+	 * there are no pre-checks and no notifications, the primary already sent them.
+	 */
+	public void replicateTransfer(String accountFromId, String accountToId, BigDecimal amount,
+			BigDecimal balanceFrom, BigDecimal balanceTo) {
+		boolean fromFirst = this.accountLocks.locksBefore(accountFromId, accountToId);
+		String firstId = fromFirst ? accountFromId : accountToId;
+		String secondId = fromFirst ? accountToId : accountFromId;
+
+		synchronized (this.accountLocks.lockFor(firstId)) {
+			synchronized (this.accountLocks.lockFor(secondId)) {
+				Account fromAccount = this.accountsRepository.getAccount(accountFromId);
+				Account toAccount = this.accountsRepository.getAccount(accountToId);
+				fromAccount.setBalance(balanceFrom);
+				toAccount.setBalance(balanceTo);
+				this.accountsRepository.updateAccounts(fromAccount, toAccount, amount);
+				for (LedgerEventListener listener : this.ledgerEventListeners) {
+					listener.transferCompleted(fromAccount, toAccount, amount);
+				}
+			}
+		}
+	}
+
+	private AccountHolds holdsOf(String accountId) {
+		return this.holds.computeIfAbsent(accountId, id -> new AccountHolds());
+	}
+
+	private AccountHolds existingHoldsOf(String accountId, long holdId) {
+		AccountHolds accountHolds = this.holds.get(accountId);
+		if (accountHolds == null) {
+			throw holdNotExists(accountId, holdId);
+		}
+		return accountHolds;
+	}
+
+	private int indexOfHold(AccountHolds accountHolds, String accountId, long holdId) {
+		int index = accountHolds.indexOf(holdId);
+		if (index < 0) {
+			throw holdNotExists(accountId, holdId);
+		}
+		return index;
+	}
+
+	/**
+	 * Holds authorized before this instance started were released by the restart, or live on the
+	 * former primary after a failover; capturing them must not look like a hold that never existed.
+	 */
+	private HoldNotExistsException holdNotExists(String accountId, long holdId) {
+		if (holdId < this.firstHoldId) {
+			return new HoldNotExistsException(
+					"Hold " + holdId + " of account " + accountId + " was released when the ledger restarted");
+		}
+		return new HoldNotExistsException("Hold " + holdId + " does not exist for account " + accountId);
+	}
+
+	private void releaseHold(AccountHolds accountHolds, int index) {
+		accountHolds.removeAt(index);
+		if (accountHolds.size() == 0) {
+			this.accountsWithHolds.remove(accountHolds);
+		}
+	}
+
+	/**
+	 * Moves {@code amount} if the balance not reserved by {@code held} covers it, called while holding
+	 * the account and holds locks with the accounts read under them.
+	 */
+	private void debit(Account fromAccount, Account toAccount, BigDecimal amount, BigDecimal held) {
+		// From Account Balance not reserved by holds should be greater than amount to be
+		// transfer, so that does not end up with negative balance
+		if (fromAccount.getBalance().subtract(held).compareTo(amount) != 1) {
+			throw new InsufficientBalanceException("Insufficient balance!");
+		}
+
+		// Debit and credit amount, both legs are stored as one unit of work
+		fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
+		toAccount.setBalance(toAccount.getBalance().add(amount));
+		this.accountsRepository.updateAccounts(fromAccount, toAccount, amount);
+	}
+
+	private void storeAccount(Account account) {
+		synchronized (this.accountLocks.lockFor(account.getAccountId())) {
+			this.accountsRepository.createAccount(account);
+			for (LedgerEventListener listener : this.ledgerEventListeners) {
+				listener.accountCreated(account);
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,38 @@
+package com.dws.challenge.service;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.Account;
+
+/**
+ * Callback for components that follow every change of the ledger. Callbacks are invoked while
+ * {@link AccountsService} holds the lock of the accounts involved, so implementations must be cheap
+ * and must not take other account locks.
+ */
+public interface LedgerEventListener {
+
+	/**
+	 * Invoked after the account has been stored, with the account locked.
+	 */
+	default void accountCreated(Account account) {
+	}
+
+	/**
+	 * Invoked after both legs of a transfer have been stored, with both accounts locked.
+	 */
+	default void transferCompleted(Account accountFrom, Account accountTo, BigDecimal amount) {
+	}
+
+	/**
+	 * Invoked after all accounts have been removed.
+	 */
+	default void accountsCleared() {
+	}
+
+	/**
+	 * Invoked after all accounts have been replaced by a snapshot of the replication primary taken at
+	 * log entry {@code sequence}, holding {@code totalBalance} in total. No account is locked.
+	 */
+	default void accountsRestored(long sequence, BigDecimal totalBalance) {
+	}
+}
@@ -0,0 +1,178 @@
+package com.dws.challenge.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dws.challenge.domain.StandingOrder;
+import com.dws.challenge.exception.StandingOrderNotExistsException;
+import com.dws.challenge.scheduler.HierarchicalTimingWheel;
+import com.dws.challenge.scheduler.HierarchicalTimingWheel.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes standing orders through {@link AccountsService}.
+ * <p>
+ * Pending orders live in a {@link HierarchicalTimingWheel} driven by a single ticker thread, instead
+ * of one scheduled task per order, so holding millions of orders only costs a timer node and a map
+ * entry each. Due orders are handed to a small executor in the batch they expired in.
+ * <p>
+ * An order is executed and cancelled under its own monitor, once {@link #cancel(String)} returns the
+ * order does not run again. A read-only replica rejects new orders; orders live only on the instance
+ * they were registered on and are not carried over when a follower is promoted.
+ */
+@Service
+@Slf4j
+public class StandingOrderService {
+
+	private final AccountsService accountsService;
+
+	private final long tickMs;
+
+	private final HierarchicalTimingWheel<StandingOrder> wheel;
+
+	/** Pending timer per order id, an order that is not in here has been cancelled or completed. */
+	private final Map<String, Timer<StandingOrder>> timers = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "standing-order-ticker");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ExecutorService executor;
+
+	public StandingOrderService(AccountsService accountsService, @Value("${standing-orders.tick-ms:100}") long tickMs,
+			@Value("${standing-orders.wheel-size:512}") int wheelSize,
+			@Value("${standing-orders.executor-threads:4}") int executorThreads) {
+		this.accountsService = accountsService;
+		this.tickMs = tickMs;
+		this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+		AtomicInteger threads = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(executorThreads, runnable -> {
+			Thread thread = new Thread(runnable, "standing-order-executor-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PostConstruct
+	void start() {
+		this.ticker.scheduleAtFixedRate(this::tick, this.tickMs, this.tickMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void stop() {
+		this.ticker.shutdownNow();
+		this.executor.shutdown();
+	}
+
+	/**
+	 * Registers a standing order after checking that both accounts exist.
+	 *
+	 * @return the order with its generated id
+	 */
+	public StandingOrder register(StandingOrder standingOrder) {
+		if (standingOrder.getAccountTo().equals(standingOrder.getAccountFrom())) {
+			throw new IllegalArgumentException("To and From account should not be same!");
+		}
+		this.accountsService.checkWritable();
+		this.accountsService.getAccount(standingOrder.getAccountFrom());
+		this.accountsService.getAccount(standingOrder.getAccountTo());
+
+		standingOrder.setOrderId(UUID.randomUUID().toString());
+		synchronized (standingOrder) {
+			this.timers.compute(standingOrder.getOrderId(), (orderId, previous) -> schedule(standingOrder));
+		}
+		log.info("Registered standing order {}", standingOrder);
+		return standingOrder;
+	}
+
+	public void cancel(String orderId) {
+		Timer<StandingOrder> timer = this.timers.get(orderId);
+		if (timer == null) {
+			throw new StandingOrderNotExistsException("Standing order " + orderId + " does not exist");
+		}
+		// waits for an execution in progress, the order may have expired before it is cancelled
+		synchronized (timer.getPayload()) {
+			timer = this.timers.remove(orderId);
+			if (timer == null) {
+				throw new StandingOrderNotExistsException("Standing order " + orderId + " does not exist");
+			}
+			this.wheel.cancel(timer);
+		}
+		log.info("Cancelled standing order {}", orderId);
+	}
+
+	public int getPendingOrders() {
+		return this.timers.size();
+	}
+
+	/**
+	 * Puts the order on the wheel. Called from inside {@code timers.compute} under the monitor of the
+	 * order, so the order cannot be executed before its timer is recorded.
+	 */
+	private Timer<StandingOrder> schedule(StandingOrder standingOrder) {
+		return this.wheel.schedule(standingOrder, standingOrder.getExecuteAt().toEpochMilli());
+	}
+
+	private void tick() {
+		List<StandingOrder> due = new ArrayList<>();
+		try {
+			this.wheel.advanceClock(System.currentTimeMillis(), due::add);
+		} catch (RuntimeException e) {
+			log.error("Standing order ticker failed", e);
+		}
+		if (!due.isEmpty()) {
+			log.debug("Executing {} due standing orders", due.size());
+			for (StandingOrder standingOrder : due) {
+				this.executor.execute(() -> execute(standingOrder));
+			}
+		}
+	}
+
+	private void execute(StandingOrder standingOrder) {
+		synchronized (standingOrder) {
+			if (!this.timers.containsKey(standingOrder.getOrderId())) {
+				// cancelled after it was due
+				return;
+			}
+			try {
+				this.accountsService.transferAmount(standingOrder.toTransaction());
+			} catch (RuntimeException e) {
+				log.warn("Standing order {} failed: {}", standingOrder.getOrderId(), e.getMessage());
+			}
+			reschedule(standingOrder);
+		}
+	}
+
+	private void reschedule(StandingOrder standingOrder) {
+		if (!standingOrder.isRecurring()) {
+			this.timers.remove(standingOrder.getOrderId());
+			return;
+		}
+		long intervalMs = TimeUnit.SECONDS.toMillis(standingOrder.getRepeatIntervalSeconds());
+		long next = standingOrder.getExecuteAt().toEpochMilli() + intervalMs;
+		long now = System.currentTimeMillis();
+		if (next <= now) {
+			// executions missed while the application was busy are skipped, not replayed
+			next += ((now - next) / intervalMs + 1) * intervalMs;
+		}
+		standingOrder.setExecuteAt(Instant.ofEpochMilli(next));
+		this.timers.computeIfPresent(standingOrder.getOrderId(), (orderId, previous) -> schedule(standingOrder));
+	}
+}
@@ -0,0 +1,16 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.exception.TransferRejectedException;
+
+/**
+ * Stage evaluated by {@link AccountsService} before a transfer takes any account lock. Checks run on
+ * every transfer, so they must answer in microseconds and must not block.
+ */
+public interface TransferPreCheck {
+
+	/**
+	 * @throws TransferRejectedException if the transfer must not be executed
+	 */
+	void check(Transaction transaction) throws TransferRejectedException;
+}
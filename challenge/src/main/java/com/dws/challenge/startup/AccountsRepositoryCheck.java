@@ -0,0 +1,32 @@
+package com.dws.challenge.startup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryJdbc;
+
+/**
+ * Fails the startup when the account store does not match {@code accounts.repository}.
+ * <p>
+ * Without AOT the store is chosen by that property and always matches. An AOT-processed build
+ * chooses it when the jar is built, from the profiles given with {@code -PaotProfiles}; started with
+ * a different {@code accounts.repository} it would silently keep the other store, e.g. accounts in
+ * memory while the operator expects them in the database. Values are compared ignoring case, like
+ * {@code @ConditionalOnProperty} does.
+ */
+@Component
+public class AccountsRepositoryCheck {
+
+	public AccountsRepositoryCheck(AccountsRepository accountsRepository,
+			@Value("${accounts.repository:memory}") String configured) {
+		String built = accountsRepository instanceof AccountsRepositoryJdbc ? "jdbc" : "memory";
+		if (!built.equalsIgnoreCase(configured)) {
+			String rebuild = "jdbc".equalsIgnoreCase(configured) ? "rebuild with -PaotProfiles=jdbc"
+					: "rebuild without -PaotProfiles";
+			throw new IllegalStateException("accounts.repository is " + configured + " but the application uses the "
+					+ built + " account store it was built with ahead of time; " + rebuild
+					+ " or start with accounts.repository=" + built);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package com.dws.challenge.startup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.overload.ConcurrencyLimitFilter;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.AccountsRepositoryJdbc;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.AccountsController;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gets the transfer path compiled before the instance reports readiness: runners complete before
+ * Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC}.
+ * <p>
+ * {@code transfers} transfers run through {@link AccountsService#transferAmount} on a detached
+ * service over its own accounts, so no ledger listener, replica, journal, audit, pre-check or
+ * notification ever sees them. The accounts are stored the way the application stores them: in
+ * memory, or with the jdbc repository in a private in-memory H2 database created from the account
+ * schema and dropped afterwards. Then {@code requests} requests that fail validation (an unknown
+ * account, a transfer to the same account) go through the web stack of this instance, they change no
+ * state; the {@link ConcurrencyLimitFilter} starts over afterwards so that their response times do not
+ * stay in its averages. The loggers of the transfer path are raised to WARN meanwhile.
+ * <p>
+ * The flag is read at run time rather than through a condition, an AOT-processed build keeps it
+ * switchable.
+ */
+@Component
+@Slf4j
+public class TransferWarmup implements ApplicationRunner {
+
+	private static final int ACCOUNTS = 64;
+
+	private static final String ACCOUNTS_SCHEMA = "db/accounts-schema.sql";
+
+	private static final String[] QUIET_LOGGERS = { AccountsService.class.getName(),
+			AccountsController.class.getName() };
+
+	private final boolean enabled;
+
+	private final int transfers;
+
+	private final int requests;
+
+	private final AccountsRepository accountsRepository;
+
+	private final ConcurrencyLimitFilter concurrencyLimitFilter;
+
+	private final Environment environment;
+
+	private final LoggingSystem loggingSystem;
+
+	public TransferWarmup(@Value("${warmup.enabled:false}") boolean enabled,
+			@Value("${warmup.transfers:20000}") int transfers, @Value("${warmup.requests:2000}") int requests,
+			AccountsRepository accountsRepository, ConcurrencyLimitFilter concurrencyLimitFilter,
+			Environment environment, LoggingSystem loggingSystem) {
+		this.enabled = enabled;
+		this.transfers = transfers;
+		this.requests = requests;
+		this.accountsRepository = accountsRepository;
+		this.concurrencyLimitFilter = concurrencyLimitFilter;
+		this.environment = environment;
+		this.loggingSystem = loggingSystem;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		if (!this.enabled) {
+			return;
+		}
+		long start = System.nanoTime();
+		LogLevel[] levels = new LogLevel[QUIET_LOGGERS.length];
+		for (int i = 0; i < QUIET_LOGGERS.length; i++) {
+			LoggerConfiguration configuration = this.loggingSystem.getLoggerConfiguration(QUIET_LOGGERS[i]);
+			levels[i] = configuration != null ? configuration.getConfiguredLevel() : null;
+			this.loggingSystem.setLogLevel(QUIET_LOGGERS[i], LogLevel.WARN);
+		}
+		boolean jdbc = this.accountsRepository instanceof AccountsRepositoryJdbc;
+		try {
+			if (jdbc) {
+				warmJdbcTransfers();
+			} else {
+				warmTransfers(new AccountsRepositoryInMemory());
+			}
+			warmRequests();
+		} finally {
+			this.concurrencyLimitFilter.resetLimits();
+			for (int i = 0; i < QUIET_LOGGERS.length; i++) {
+				this.loggingSystem.setLogLevel(QUIET_LOGGERS[i], levels[i]);
+			}
+		}
+		log.info("Warmed up with {} transfers on the {} account store and {} requests in {}ms", this.transfers,
+				jdbc ? "jdbc" : "in-memory", this.requests, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * An unnamed H2 in-memory database belongs to its one connection and is dropped when it closes.
+	 */
+	private void warmJdbcTransfers() {
+		SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:h2:mem:", true);
+		try {
+			new ResourceDatabasePopulator(new ClassPathResource(ACCOUNTS_SCHEMA)).execute(dataSource);
+			warmTransfers(new AccountsRepositoryJdbc(new JdbcTemplate(dataSource),
+					new TransactionTemplate(new DataSourceTransactionManager(dataSource)), ACCOUNTS, ACCOUNTS));
+		} finally {
+			dataSource.destroy();
+		}
+	}
+
+	private void warmTransfers(AccountsRepository warmupRepository) {
+		AccountsService accountsService = AccountsService.detached(warmupRepository,
+				(account, transferDescription) -> {
+				});
+		for (int i = 0; i < ACCOUNTS; i++) {
+			accountsService.createAccount(new Account(accountId(i), new BigDecimal(1_000_000_000)));
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < this.transfers; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			accountsService.transferAmount(
+					new Transaction(accountId(from), accountId(to), BigDecimal.valueOf(1 + random.nextInt(10_000), 2)));
+		}
+	}
+
+	/**
+	 * Skipped when there is no server listening, e.g. in tests with a mock servlet environment.
+	 */
+	private void warmRequests() throws InterruptedException {
+		Integer port = this.environment.getProperty("local.server.port", Integer.class);
+		if (port == null || port <= 0 || this.requests <= 0) {
+			return;
+		}
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+		URI account = URI.create("http://localhost:" + port + "/v1/accounts/" + accountId(-1));
+		URI transfer = URI.create("http://localhost:" + port + "/v1/accounts/fundTransfer");
+		String sameAccount = String.format("{\"accountFrom\":\"%1$s\",\"accountTo\":\"%1$s\",\"amount\":1}",
+				accountId(-1));
+		try {
+			for (int i = 0; i < this.requests; i++) {
+				client.send(HttpRequest.newBuilder(account).GET().build(), HttpResponse.BodyHandlers.discarding());
+				client.send(HttpRequest.newBuilder(transfer).header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(sameAccount)).build(),
+						HttpResponse.BodyHandlers.discarding());
+			}
+		} catch (IOException e) {
+			log.warn("Stopping request warm-up: {}", e.getMessage());
+		}
+	}
+
+	private static String accountId(int index) {
+		return "warmup-" + index;
+	}
+}
@@ -1,22 +1,33 @@
 package com.dws.challenge.web;
 
+import java.math.BigDecimal;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.StandingOrder;
 import com.dws.challenge.domain.Transaction;
 import com.dws.challenge.exception.AccountNotExistsException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.HoldNotExistsException;
 import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.exception.StandingOrderNotExistsException;
+import com.dws.challenge.exception.TransferRejectedException;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.StandingOrderService;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -28,9 +39,12 @@ public class AccountsController {
 
 	private final AccountsService accountsService;
 
+	private final StandingOrderService standingOrderService;
+
 	@Autowired
-	public AccountsController(AccountsService accountsService) {
+	public AccountsController(AccountsService accountsService, StandingOrderService standingOrderService) {
 		this.accountsService = accountsService;
+		this.standingOrderService = standingOrderService;
 	}
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -41,6 +55,8 @@ public class AccountsController {
 			this.accountsService.createAccount(account);
 		} catch (DuplicateAccountIdException daie) {
 			return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
 		}
 
 		return new ResponseEntity<>(HttpStatus.CREATED);
@@ -69,9 +85,90 @@ public class AccountsController {
 			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
 		} catch (InsufficientBalanceException ex) {
 			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (TransferRejectedException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+		} catch (IllegalArgumentException iae) {
+			return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+		return new ResponseEntity<>(HttpStatus.OK);
+	}
+
+	@PostMapping(path = "/standingOrders", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Object> registerStandingOrder(@RequestBody @Valid StandingOrder standingOrder) {
+		log.info("Registering standing order of {} from account {} to account {} at {}", standingOrder.getAmount(),
+				standingOrder.getAccountFrom(), standingOrder.getAccountTo(), standingOrder.getExecuteAt());
+		try {
+			return new ResponseEntity<>(this.standingOrderService.register(standingOrder), HttpStatus.CREATED);
+		} catch (AccountNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+		} catch (IllegalArgumentException iae) {
+			return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	@DeleteMapping(path = "/standingOrders/{orderId}")
+	public ResponseEntity<Object> cancelStandingOrder(@PathVariable("orderId") String orderId) {
+		try {
+			this.standingOrderService.cancel(orderId);
+		} catch (StandingOrderNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+		return new ResponseEntity<>(HttpStatus.OK);
+	}
+
+	@PostMapping(path = "/holds", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Object> authorizeHold(@RequestBody @Valid Hold hold) {
+		log.info("Authorizing hold of {} on account {} for account {}", hold.getAmount(), hold.getAccountFrom(),
+				hold.getAccountTo());
+		try {
+			return new ResponseEntity<>(this.accountsService.authorize(hold), HttpStatus.CREATED);
+		} catch (AccountNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (InsufficientBalanceException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (TransferRejectedException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+		} catch (IllegalArgumentException iae) {
+			return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Captures the hold, in full unless a smaller {@code amount} is given.
+	 */
+	@PostMapping(path = "/{accountId}/holds/{holdId}/capture")
+	public ResponseEntity<Object> captureHold(@PathVariable("accountId") String accountId,
+			@PathVariable("holdId") long holdId, @RequestParam(name = "amount", required = false) BigDecimal amount) {
+		try {
+			this.accountsService.capture(accountId, holdId, amount);
+		} catch (HoldNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (AccountNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
 		} catch (IllegalArgumentException iae) {
 			return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
 		}
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
+
+	@DeleteMapping(path = "/{accountId}/holds/{holdId}")
+	public ResponseEntity<Object> voidHold(@PathVariable("accountId") String accountId,
+			@PathVariable("holdId") long holdId) {
+		try {
+			this.accountsService.voidHold(accountId, holdId);
+		} catch (HoldNotExistsException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException ex) {
+			return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return new ResponseEntity<>(HttpStatus.OK);
+	}
 }
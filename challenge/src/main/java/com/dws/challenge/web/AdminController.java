@@ -0,0 +1,112 @@
+package com.dws.challenge.web;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.dws.challenge.audit.LedgerAuditor;
+import com.dws.challenge.batch.EndOfDayService;
+import com.dws.challenge.contention.LockContentionProfiler;
+import com.dws.challenge.domain.HotAccountsReport;
+import com.dws.challenge.domain.LedgerAuditReport;
+import com.dws.challenge.domain.ReconciliationReport;
+import com.dws.challenge.domain.ReplicationStatus;
+import com.dws.challenge.replication.ReplicationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping("/v1/admin")
+@Slf4j
+public class AdminController {
+
+	private final LedgerAuditor ledgerAuditor;
+
+	private final ReplicationManager replicationManager;
+
+	private final EndOfDayService endOfDayService;
+
+	private final LockContentionProfiler lockProfiler;
+
+	@Autowired
+	public AdminController(LedgerAuditor ledgerAuditor, ReplicationManager replicationManager,
+			EndOfDayService endOfDayService, LockContentionProfiler lockProfiler) {
+		this.ledgerAuditor = ledgerAuditor;
+		this.replicationManager = replicationManager;
+		this.endOfDayService = endOfDayService;
+		this.lockProfiler = lockProfiler;
+	}
+
+	/**
+	 * Returns the result of the latest ledger audit, running one if none has completed yet.
+	 */
+	@GetMapping(path = "/ledger-audit")
+	public ResponseEntity<LedgerAuditReport> getLedgerAudit() {
+		LedgerAuditReport report = this.ledgerAuditor.getLastReport();
+		return ResponseEntity.ok(report != null ? report : this.ledgerAuditor.audit());
+	}
+
+	@PostMapping(path = "/ledger-audit")
+	public ResponseEntity<LedgerAuditReport> runLedgerAudit() {
+		log.info("Running ledger audit on request");
+		return ResponseEntity.ok(this.ledgerAuditor.audit());
+	}
+
+	@GetMapping(path = "/replication")
+	public ResponseEntity<ReplicationStatus> getReplicationStatus() {
+		return ResponseEntity.ok(this.replicationManager.getStatus());
+	}
+
+	/**
+	 * Promotes a follower to primary, a no-op on any other instance.
+	 */
+	@PostMapping(path = "/replication/promote")
+	public ResponseEntity<ReplicationStatus> promote() throws InterruptedException {
+		log.info("Promoting instance to replication primary on request");
+		return ResponseEntity.ok(this.replicationManager.promote());
+	}
+
+	/**
+	 * Returns the report of the latest end-of-day run, 204 if there was none yet.
+	 */
+	@GetMapping(path = "/end-of-day")
+	public ResponseEntity<ReconciliationReport> getEndOfDay() {
+		ReconciliationReport report = this.endOfDayService.getLastReport();
+		return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+	}
+
+	/**
+	 * Runs end of day now, 404 unless {@code eod.enabled} is set.
+	 */
+	@PostMapping(path = "/end-of-day")
+	public ResponseEntity<ReconciliationReport> runEndOfDay() throws IOException, InterruptedException {
+		if (!this.endOfDayService.isEnabled()) {
+			return ResponseEntity.notFound().build();
+		}
+		log.info("Running end of day on request");
+		return ResponseEntity.ok(this.endOfDayService.runEndOfDay());
+	}
+
+	/**
+	 * Returns the accounts whose locks sampled transfers waited longest for, most contended first.
+	 */
+	@GetMapping(path = "/hot-accounts")
+	public ResponseEntity<HotAccountsReport> getHotAccounts(
+			@RequestParam(name = "limit", defaultValue = "20") int limit) {
+		return ResponseEntity.ok(this.lockProfiler.getHotAccounts(limit));
+	}
+
+	@DeleteMapping(path = "/hot-accounts")
+	public ResponseEntity<Void> resetHotAccounts() {
+		log.info("Resetting hot accounts on request");
+		this.lockProfiler.reset();
+		return ResponseEntity.noContent().build();
+	}
+}
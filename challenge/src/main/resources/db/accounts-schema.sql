@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS account (
+	account_id VARCHAR(255) NOT NULL PRIMARY KEY,
+	balance DECIMAL(19, 4) NOT NULL
+);
@@ -0,0 +1,122 @@
+package com.dws.challenge.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.LedgerAuditReport;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@Slf4j
+class LedgerAuditorTest {
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private LedgerAuditor ledgerAuditor;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@BeforeEach
+	void clearAccounts() {
+		accountsService.clearAccounts();
+	}
+
+	@Test
+	void auditBalancedLedger() {
+		this.accountsService.createAccount(new Account("Id-201", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-202", new BigDecimal("250.50")));
+		this.accountsService.transferAmount(new Transaction("Id-201", "Id-202", new BigDecimal(100)));
+
+		LedgerAuditReport report = this.ledgerAuditor.audit();
+
+		assertThat(report.isBalanced()).isTrue();
+		assertThat(report.getObservedTotal()).isEqualByComparingTo("1250.50");
+		assertThat(report.getAccountsScanned()).isEqualTo(2);
+	}
+
+	@Test
+	void auditDetectsDrift() {
+		Account account = new Account("Id-203", new BigDecimal(1000));
+		this.accountsService.createAccount(account);
+
+		// money created behind the back of the service
+		account.setBalance(new BigDecimal(1200));
+		this.accountsService.getAccountsRepository().updateAccount(account);
+
+		assertThat(this.ledgerAuditor.audit().getDrift()).isEqualByComparingTo("200");
+	}
+
+	/**
+	 * Audits repeatedly while concurrent transfers keep moving money between a small set of accounts,
+	 * every snapshot has to add up to the money the accounts were created with.
+	 */
+	@Test
+	void auditWhileTransfersAreRunning() throws Exception {
+		int accounts = 8;
+		for (int i = 0; i < accounts; i++) {
+			this.accountsService.createAccount(new Account("Id-21" + i, new BigDecimal(100000)));
+		}
+
+		// Mocking notificationService
+		doNothing().when(notificationService).notifyAboutTransfer(any(), any());
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch latch = new CountDownLatch(4);
+		for (int t = 0; t < 4; t++) {
+			executor.submit(() -> {
+				Random random = new Random();
+				try {
+					for (int i = 0; i < 2000; i++) {
+						int from = random.nextInt(accounts);
+						int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+						this.accountsService.transferAmount(
+								new Transaction("Id-21" + from, "Id-21" + to, new BigDecimal(random.nextInt(50) + 1)));
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+
+		List<LedgerAuditReport> reports = new ArrayList<>();
+		while (latch.getCount() > 0) {
+			reports.add(this.ledgerAuditor.audit());
+		}
+		executor.shutdown();
+		reports.add(this.ledgerAuditor.audit());
+
+		log.info("Ran {} audits while transferring", reports.size());
+		assertThat(reports).allSatisfy(report -> {
+			assertThat(report.getDrift()).isEqualByComparingTo(BigDecimal.ZERO);
+			assertThat(report.getExpectedTotal()).isEqualByComparingTo(new BigDecimal(100000 * accounts));
+		});
+	}
+}
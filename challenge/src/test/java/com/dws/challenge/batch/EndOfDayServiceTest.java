@@ -0,0 +1,125 @@
+package com.dws.challenge.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReconciliationReport;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "eod.enabled=true")
+@Slf4j
+class EndOfDayServiceTest {
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private EndOfDayService endOfDayService;
+
+	@Autowired
+	private AccountsRepository accountsRepository;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@BeforeEach
+	void clearAccounts() {
+		accountsService.clearAccounts();
+	}
+
+	@Test
+	void reconcilesDayOfTransfers() throws Exception {
+		this.accountsService.createAccount(new Account("Id-501", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-502", new BigDecimal("250.50")));
+		this.accountsService.transferAmount(new Transaction("Id-501", "Id-502", new BigDecimal(100)));
+		this.accountsService.transferAmount(new Transaction("Id-502", "Id-501", new BigDecimal("20.25")));
+
+		ReconciliationReport report = this.endOfDayService.runEndOfDay();
+
+		assertThat(report.isBalanced()).isTrue();
+		assertThat(report.getAccounts()).isEqualTo(2);
+		assertThat(report.getTransfers()).isEqualTo(2);
+		assertThat(report.getOpeningTotal()).isEqualByComparingTo("1250.50");
+		assertThat(report.getCreditsTotal()).isEqualByComparingTo("120.25");
+		assertThat(report.getClosingTotal()).isEqualByComparingTo("1250.50");
+		assertThat(readStatements(report)).containsExactly("Id-501,1000,20.25,100,920.25,2",
+				"Id-502,250.50,100,20.25,330.25,2");
+		assertThat(this.endOfDayService.getLastReport()).isEqualTo(report);
+	}
+
+	@Test
+	void nextRunOpensWithPreviousClosing() throws Exception {
+		this.accountsService.createAccount(new Account("Id-503", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-504", new BigDecimal(0)));
+		this.accountsService.transferAmount(new Transaction("Id-503", "Id-504", new BigDecimal(400)));
+		this.endOfDayService.runEndOfDay();
+
+		this.accountsService.transferAmount(new Transaction("Id-503", "Id-504", new BigDecimal(100)));
+		this.accountsService.createAccount(new Account("Id-505", new BigDecimal(50)));
+		ReconciliationReport report = this.endOfDayService.runEndOfDay();
+
+		assertThat(report.isBalanced()).isTrue();
+		assertThat(report.getAccounts()).isEqualTo(3);
+		assertThat(report.getTransfers()).isEqualTo(1);
+		assertThat(readStatements(report)).containsExactly("Id-503,600,0,100,500,1", "Id-504,400,100,0,500,1",
+				"Id-505,50,0,0,50,0");
+	}
+
+	/**
+	 * An account that is older than the journal has no known balance at the first cutoff, it appears
+	 * from the first day it has entries.
+	 */
+	@Test
+	void accountWithoutEntriesJoinsOnFirstEntry() throws Exception {
+		this.accountsRepository.createAccount(new Account("Id-506", new BigDecimal(300)));
+		this.accountsService.createAccount(new Account("Id-507", new BigDecimal(0)));
+		ReconciliationReport first = this.endOfDayService.runEndOfDay();
+
+		assertThat(first.isBalanced()).isTrue();
+		assertThat(readStatements(first)).containsExactly("Id-507,0,0,0,0,0");
+
+		this.accountsService.transferAmount(new Transaction("Id-506", "Id-507", new BigDecimal(100)));
+		ReconciliationReport next = this.endOfDayService.runEndOfDay();
+
+		assertThat(next.isBalanced()).isTrue();
+		assertThat(readStatements(next)).containsExactly("Id-506,300,0,100,200,1", "Id-507,0,100,0,100,1");
+	}
+
+	private static List<String> readStatements(ReconciliationReport report) throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (Path part : EndOfDayJob.statementParts(Paths.get(report.getStatements()))) {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new GZIPInputStream(Files.newInputStream(part)), StandardCharsets.UTF_8))) {
+				assertThat(reader.readLine()).isEqualTo(EndOfDayJob.STATEMENT_HEADER);
+				reader.lines().forEach(lines::add);
+			}
+		}
+		lines.sort(null);
+		return lines;
+	}
+}
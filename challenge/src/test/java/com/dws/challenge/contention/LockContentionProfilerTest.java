@@ -0,0 +1,126 @@
+package com.dws.challenge.contention;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.HotAccount;
+import com.dws.challenge.domain.HotAccountsReport;
+import com.dws.challenge.service.AccountLocks;
+
+class LockContentionProfilerTest {
+
+	private static final AccountLocks LOCKS = new AccountLocks(AccountLocks.DEFAULT_STRIPES);
+
+	@Test
+	void ranksAccountsByWait() {
+		LockContentionProfiler profiler = new LockContentionProfiler(1, 16, false);
+		record(profiler, "Id-701", "Id-702", 0, 500, 20);
+		record(profiler, "Id-702", "Id-703", 300, 0, 20);
+		record(profiler, "Id-701", "Id-703", 100, 0, 20);
+
+		HotAccountsReport report = profiler.getHotAccounts(2);
+		assertThat(report.getSampledTransfers()).isEqualTo(3);
+		assertThat(report.getTotalWaitMicros()).isEqualTo(900);
+		assertThat(report.getTrackedAccounts()).isEqualTo(3);
+		assertThat(report.getAccounts()).extracting(HotAccount::getAccountId).containsExactly("Id-702", "Id-701");
+
+		HotAccount hottest = report.getAccounts().get(0);
+		assertThat(hottest.getSampledAcquisitions()).isEqualTo(2);
+		assertThat(hottest.getContendedAcquisitions()).isEqualTo(2);
+		assertThat(hottest.getWaitMicros()).isEqualTo(800);
+		assertThat(hottest.getMaxWaitMicros()).isEqualTo(500);
+		assertThat(hottest.getWaitShare()).isCloseTo(800 / 900.0, offset(1e-9));
+		assertThat(hottest.getHoldMicros()).isEqualTo(40);
+		assertThat(hottest.getLockStripe()).isEqualTo(LOCKS.stripe("Id-702"));
+		// the first lock is also held while waiting for the second one
+		assertThat(report.getAccounts().get(1).getHoldMicros()).isEqualTo(520 + 20);
+		assertThat(report.getAccounts().get(1).getContendedAcquisitions()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsHotAccountAmongManyColdOnes() {
+		LockContentionProfiler profiler = new LockContentionProfiler(1, 8, false);
+		for (int i = 0; i < 10_000; i++) {
+			record(profiler, "Cold-" + i, "Cold-" + (i + 1), 1, 1, 5);
+			if (i % 100 == 0) {
+				record(profiler, "Cold-" + i, "Merchant", 0, 200, 5);
+			}
+		}
+
+		HotAccountsReport report = profiler.getHotAccounts(3);
+		assertThat(report.getTrackedAccounts()).isEqualTo(8);
+		HotAccount merchant = report.getAccounts().get(0);
+		assertThat(merchant.getAccountId()).isEqualTo("Merchant");
+		assertThat(merchant.getWaitMicros() - merchant.getWaitErrorMicros()).isLessThanOrEqualTo(100 * 200);
+		assertThat(merchant.getWaitMicros()).isGreaterThanOrEqualTo(100 * 200);
+	}
+
+	@Test
+	void shardedSketchKeepsHotAccountsOfConcurrentTransfers() throws Exception {
+		LockContentionProfiler profiler = new LockContentionProfiler(1, 256, false);
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			executor.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					String cold = "Cold-" + thread + "-" + i;
+					record(profiler, cold, i % 10 == 0 ? "Merchant" : cold + "-1", 1, i % 10 == 0 ? 200 : 1, 5);
+				}
+				done.countDown();
+			});
+		}
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+
+		HotAccountsReport report = profiler.getHotAccounts(3);
+		assertThat(report.getSampledTransfers()).isEqualTo(threads * 10_000);
+		assertThat(report.getCapacity()).isEqualTo(256);
+		assertThat(report.getTrackedAccounts()).isEqualTo(256);
+		HotAccount merchant = report.getAccounts().get(0);
+		assertThat(merchant.getAccountId()).isEqualTo("Merchant");
+		assertThat(merchant.getSampledAcquisitions()).isEqualTo(threads * 1000);
+		assertThat(merchant.getWaitMicros()).isEqualTo(threads * 1000 * 200);
+	}
+
+	@Test
+	void resetForgetsAccounts() {
+		LockContentionProfiler profiler = new LockContentionProfiler(1, 8, false);
+		record(profiler, "Id-704", "Id-705", 10, 10, 10);
+		profiler.reset();
+
+		HotAccountsReport report = profiler.getHotAccounts(10);
+		assertThat(report.getSampledTransfers()).isZero();
+		assertThat(report.getAccounts()).isEmpty();
+	}
+
+	@Test
+	void disabledProfilerSamplesNothing() {
+		LockSample sample = LockContentionProfiler.DISABLED.begin(LOCKS, "Id-706", "Id-707");
+		assertThat(sample).isSameAs(LockSample.NONE);
+		sample.firstAcquired();
+		sample.secondAcquired();
+		sample.end();
+		assertThat(LockContentionProfiler.DISABLED.getHotAccounts(10).getSampledTransfers()).isZero();
+	}
+
+	/**
+	 * Records a transfer that waited {@code firstWaitMicros} and {@code secondWaitMicros} for its locks
+	 * and held both for {@code holdMicros} once it had them.
+	 */
+	private static void record(LockContentionProfiler profiler, String first, String second, long firstWaitMicros,
+			long secondWaitMicros, long holdMicros) {
+		LockSample sample = new LockSample(profiler, first, LOCKS.stripe(first), second, LOCKS.stripe(second), 0);
+		sample.firstAcquiredNanos = TimeUnit.MICROSECONDS.toNanos(firstWaitMicros);
+		sample.secondAcquiredNanos = sample.firstAcquiredNanos + TimeUnit.MICROSECONDS.toNanos(secondWaitMicros);
+		profiler.record(sample, sample.secondAcquiredNanos + TimeUnit.MICROSECONDS.toNanos(holdMicros));
+	}
+}
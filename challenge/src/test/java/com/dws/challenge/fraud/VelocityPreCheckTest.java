@@ -0,0 +1,98 @@
+package com.dws.challenge.fraud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.exception.TransferRejectedException;
+
+class VelocityPreCheckTest {
+
+	@Test
+	void rejectsAboveTransferCount() {
+		VelocityPreCheck preCheck = new VelocityPreCheck(true, 60, 3, new BigDecimal(10000), 100);
+		for (int i = 0; i < 3; i++) {
+			preCheck.check(new Transaction("Id-401", "Id-402", BigDecimal.ONE));
+		}
+
+		assertThatThrownBy(() -> preCheck.check(new Transaction("Id-401", "Id-402", BigDecimal.ONE)))
+				.isInstanceOf(TransferRejectedException.class)
+				.hasMessage("Transfer limit exceeded for account Id-401");
+		// the limit is per debited account
+		assertThatCode(() -> preCheck.check(new Transaction("Id-402", "Id-401", BigDecimal.ONE)))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void rejectsAboveAmount() {
+		VelocityPreCheck preCheck = new VelocityPreCheck(true, 60, 100, new BigDecimal("1000.50"), 100);
+		preCheck.check(new Transaction("Id-403", "Id-404", new BigDecimal(1000)));
+
+		assertThatThrownBy(() -> preCheck.check(new Transaction("Id-403", "Id-404", new BigDecimal("0.51"))))
+				.isInstanceOf(TransferRejectedException.class)
+				.hasMessage("Amount limit exceeded for account Id-403");
+		assertThatCode(() -> preCheck.check(new Transaction("Id-403", "Id-404", new BigDecimal("0.50"))))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void disabledCheckAcceptsEverything() {
+		VelocityPreCheck preCheck = new VelocityPreCheck(false, 60, 1, BigDecimal.ONE, 100);
+		for (int i = 0; i < 10; i++) {
+			preCheck.check(new Transaction("Id-405", "Id-406", new BigDecimal(1000)));
+		}
+		assertThat(preCheck.getTrackedAccounts()).isZero();
+	}
+
+	@Test
+	void untrackedAccountsRejectedWhenFull() {
+		VelocityPreCheck preCheck = new VelocityPreCheck(true, 60, 1, new BigDecimal(10000), 1);
+		preCheck.check(new Transaction("Id-407", "Id-408", BigDecimal.ONE));
+
+		assertThatThrownBy(() -> preCheck.check(new Transaction("Id-408", "Id-407", BigDecimal.ONE)))
+				.isInstanceOf(TransferRejectedException.class)
+				.hasMessage("Transfer limit cannot be tracked for account Id-408");
+		// the tracked account keeps its limit
+		assertThatThrownBy(() -> preCheck.check(new Transaction("Id-407", "Id-408", BigDecimal.ONE)))
+				.isInstanceOf(TransferRejectedException.class)
+				.hasMessage("Transfer limit exceeded for account Id-407");
+		assertThat(preCheck.getTrackedAccounts()).isEqualTo(1);
+	}
+
+	@Test
+	void idleCountersEvictedWhenFull() throws Exception {
+		VelocityPreCheck preCheck = new VelocityPreCheck(true, 1, 1, new BigDecimal(10000), 1);
+		preCheck.check(new Transaction("Id-409", "Id-410", BigDecimal.ONE));
+
+		// a window of one second later the counter of Id-409 is idle and makes room for Id-410
+		Thread.sleep(1200);
+		preCheck.check(new Transaction("Id-410", "Id-409", BigDecimal.ONE));
+		assertThat(preCheck.getTrackedAccounts()).isEqualTo(1);
+		assertThatThrownBy(() -> preCheck.check(new Transaction("Id-409", "Id-410", BigDecimal.ONE)))
+				.isInstanceOf(TransferRejectedException.class)
+				.hasMessage("Transfer limit cannot be tracked for account Id-409");
+	}
+
+	@Test
+	void windowSlidesOverOldSlots() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(10);
+		counter.add(100, 5);
+		counter.add(105, 7);
+
+		assertThat(counter.count(105)).isEqualTo(2);
+		assertThat(counter.amount(109)).isEqualTo(12);
+		assertThat(counter.amount(110)).isEqualTo(7);
+		assertThat(counter.isIdle(114)).isFalse();
+		assertThat(counter.isIdle(115)).isTrue();
+
+		// slot 110 reuses the position of slot 100
+		counter.add(110, 1);
+		assertThat(counter.count(110)).isEqualTo(2);
+		assertThat(counter.amount(110)).isEqualTo(8);
+	}
+}
@@ -0,0 +1,106 @@
+package com.dws.challenge.overload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class ConcurrencyLimitFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 1, 1, 1, 1, 1, 100, 1.5, 0.2, 2,
+			this.meterRegistry);
+
+	@Test
+	void shedsTransfersAboveLimitButServesReads() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+			try {
+				this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"),
+						new MockHttpServletResponse(), (request, response) -> {
+							entered.countDown();
+							await(release);
+						});
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		MockHttpServletResponse shed = new MockHttpServletResponse();
+		MockFilterChain unreached = new MockFilterChain();
+		this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"), shed, unreached);
+		assertThat(shed.getStatus()).isEqualTo(503);
+		assertThat(shed.getHeader("Retry-After")).isEqualTo("2");
+		assertThat(unreached.getRequest()).isNull();
+		assertThat(this.meterRegistry.get("overload.rejected").tag("budget", "transfer").counter().count())
+				.isEqualTo(1.0);
+		assertThat(this.meterRegistry.get("overload.inflight").tag("budget", "transfer").gauge().value())
+				.isEqualTo(1.0);
+
+		MockHttpServletResponse read = new MockHttpServletResponse();
+		MockFilterChain served = new MockFilterChain();
+		this.filter.doFilter(new MockHttpServletRequest("GET", "/v1/accounts/Id-601"), read, served);
+		assertThat(read.getStatus()).isEqualTo(200);
+		assertThat(served.getRequest()).isNotNull();
+
+		release.countDown();
+		blocked.get(5, TimeUnit.SECONDS);
+		MockFilterChain afterRelease = new MockFilterChain();
+		this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"),
+				new MockHttpServletResponse(), afterRelease);
+		assertThat(afterRelease.getRequest()).isNotNull();
+	}
+
+	@Test
+	void releasesPermitWhenChainThrowsError() throws Exception {
+		try {
+			this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"),
+					new MockHttpServletResponse(), (request, response) -> {
+						throw new StackOverflowError();
+					});
+			fail("Should have rethrown the error");
+		} catch (StackOverflowError e) {
+			// expected
+		}
+		assertThat(this.meterRegistry.get("overload.inflight").tag("budget", "transfer").gauge().value()).isZero();
+
+		MockFilterChain served = new MockFilterChain();
+		this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"),
+				new MockHttpServletResponse(), served);
+		assertThat(served.getRequest()).isNotNull();
+	}
+
+	@Test
+	void doesNotLimitAdminRequests() throws Exception {
+		FilterChain holding = (request, response) -> {
+			MockFilterChain admin = new MockFilterChain();
+			this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/admin/ledger-audit"),
+					new MockHttpServletResponse(), admin);
+			assertThat(admin.getRequest()).isNotNull();
+		};
+		this.filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/fundTransfer"),
+				new MockHttpServletResponse(), holding);
+		assertThat(this.meterRegistry.get("overload.rejected").tag("budget", "transfer").counter().count()).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.dws.challenge.overload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GradientLimiterTest {
+
+	private static final int WINDOW = 10;
+
+	@Test
+	void rejectsAboveLimit() {
+		GradientLimiter limiter = new GradientLimiter(2, 1, 10, WINDOW, 1.5, 0.2);
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+
+		limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(limiter.getInflight()).isEqualTo(1);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void growsWhileLatencyIsSteady() {
+		GradientLimiter limiter = new GradientLimiter(20, 4, 100, WINDOW, 1.5, 1.0);
+		runWindows(limiter, 1, Integer.MAX_VALUE, 1);
+		int limit = limiter.getLimit();
+		runWindows(limiter, 5, Integer.MAX_VALUE, 1);
+
+		assertThat(limiter.getLimit()).isGreaterThan(limit);
+		runWindows(limiter, 100, Integer.MAX_VALUE, 1);
+		assertThat(limiter.getLimit()).isEqualTo(100);
+	}
+
+	@Test
+	void shrinksWhenRequestsQueue() {
+		GradientLimiter limiter = new GradientLimiter(50, 10, 100, WINDOW, 1.5, 1.0);
+		runWindows(limiter, 1, Integer.MAX_VALUE, 1);
+		int limit = limiter.getLimit();
+		runWindows(limiter, 1, Integer.MAX_VALUE, 10);
+
+		// a gradient of at most one half, plus the square root of the limit as headroom
+		assertThat(limiter.getLimit()).isLessThanOrEqualTo((int) (limit * 0.5 + Math.sqrt(limit)));
+		runWindows(limiter, 4, Integer.MAX_VALUE, 10);
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void smoothingSlowsShrinking() {
+		GradientLimiter limiter = new GradientLimiter(50, 10, 100, WINDOW, 1.5, 0.2);
+		runWindows(limiter, 1, Integer.MAX_VALUE, 1);
+		int limit = limiter.getLimit();
+		runWindows(limiter, 1, Integer.MAX_VALUE, 10);
+
+		// at most a tenth: a gradient of at least one half, blended in by a fifth
+		assertThat(limiter.getLimit()).isLessThan(limit).isGreaterThanOrEqualTo((int) (limit * 0.9));
+	}
+
+	@Test
+	void resetForgetsRoundTripTimes() {
+		GradientLimiter limiter = new GradientLimiter(50, 10, 100, WINDOW, 1.5, 1.0);
+		runWindows(limiter, 1, Integer.MAX_VALUE, 1);
+		runWindows(limiter, 1, Integer.MAX_VALUE, 10);
+		assertThat(limiter.getLimit()).isLessThan(50);
+
+		limiter.reset();
+		assertThat(limiter.getLimit()).isEqualTo(50);
+		// judged against its own latency, not against the windows before the reset
+		runWindows(limiter, 1, Integer.MAX_VALUE, 10);
+		assertThat(limiter.getLimit()).isGreaterThan(50);
+	}
+
+	@Test
+	void doesNotGrowWhileMostlyIdle() {
+		GradientLimiter limiter = new GradientLimiter(20, 4, 100, WINDOW, 1.5, 1.0);
+		runWindows(limiter, 20, 3, 1);
+		assertThat(limiter.getLimit()).isEqualTo(20);
+	}
+
+	/**
+	 * Completes {@code windows} windows of requests taking {@code rttMillis}, keeping up to
+	 * {@code concurrency} of them in flight.
+	 */
+	private static void runWindows(GradientLimiter limiter, int windows, int concurrency, long rttMillis) {
+		for (int i = 0; i < windows * WINDOW; i++) {
+			while (limiter.getInflight() < concurrency && limiter.tryAcquire()) {
+				// fill up to the concurrency or the limit
+			}
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+		}
+		while (limiter.getInflight() > 0) {
+			limiter.releaseIgnored();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.dws.challenge.replication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.audit.LedgerAuditor;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountLocks;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Bootstraps a follower from a primary whose log no longer retains the first entries, with both
+ * ledgers detached from the application context.
+ */
+class LedgerSnapshotTest {
+
+	private static final int ACCOUNTS = 20;
+
+	private TransferLog primaryLog;
+
+	private AccountsService primary;
+
+	private ReplicationManager primaryManager;
+
+	private TransferLog followerLog;
+
+	private AccountsService follower;
+
+	private LedgerAuditor followerAuditor;
+
+	private ReplicationManager followerManager;
+
+	@BeforeEach
+	void startPrimary() {
+		AccountsRepositoryInMemory primaryAccounts = new AccountsRepositoryInMemory();
+		AccountLocks primaryLocks = new AccountLocks(64);
+		this.primaryLog = new TransferLog(1024);
+		this.primary = AccountsService.detached(primaryAccounts, (account, transferDescription) -> {
+		}, primaryLocks, List.of(this.primaryLog));
+		this.primaryManager = new ReplicationManager(this.primary, this.primaryLog, new ReplicationRole("primary"),
+				"127.0.0.1", 0, "localhost", 0, 16);
+		this.primaryManager.start();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			this.primary.createAccount(new Account("Id-" + (600 + i), new BigDecimal(100_000)));
+		}
+	}
+
+	@AfterEach
+	void stop() throws InterruptedException {
+		if (this.followerManager != null) {
+			this.followerManager.stop();
+		}
+		this.primaryManager.stop();
+	}
+
+	@Test
+	void followerStartsFromSnapshotOfWrappedLog() throws Exception {
+		transfer(2000, new Random(1));
+		assertThat(this.primaryLog.lastSequence()).isGreaterThan(1024);
+
+		startFollower();
+		awaitTrue(() -> this.followerManager.getStatus().getLastSequence() == this.primaryLog.lastSequence());
+		assertSameLedger();
+
+		// the log continues after the snapshot
+		transfer(30, new Random(2));
+		awaitTrue(() -> this.followerManager.getStatus().getLastSequence() == this.primaryLog.lastSequence());
+		assertSameLedger();
+		assertThat(this.followerLog.lastSequence()).isEqualTo(this.primaryLog.lastSequence());
+		assertThat(this.followerAuditor.audit().getDrift()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	/**
+	 * Transfers keep running while the snapshot is taken and shipped, the follower must end up with
+	 * the same balances anyway.
+	 */
+	@Test
+	void followerConvergesWithConcurrentTransfers() throws Exception {
+		transfer(2000, new Random(3));
+
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			int seed = t;
+			executor.submit(() -> {
+				try {
+					transfer(2000, new Random(seed));
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		startFollower();
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+
+		awaitTrue(() -> this.followerManager.getStatus().getLastSequence() == this.primaryLog.lastSequence());
+		assertSameLedger();
+	}
+
+	private void startFollower() {
+		this.followerLog = new TransferLog(1024);
+		AccountsRepositoryInMemory followerAccounts = new AccountsRepositoryInMemory();
+		AccountLocks followerLocks = new AccountLocks(64);
+		this.followerAuditor = new LedgerAuditor(followerAccounts, followerLocks);
+		this.follower = AccountsService.detached(followerAccounts, (account, transferDescription) -> {
+		}, followerLocks, List.of(this.followerLog, this.followerAuditor));
+		this.followerManager = new ReplicationManager(this.follower, this.followerLog, new ReplicationRole("follower"),
+				"127.0.0.1", 0, "localhost", this.primaryManager.getServerPort(), 16);
+		this.followerManager.start();
+	}
+
+	private void transfer(int transfers, Random random) {
+		for (int i = 0; i < transfers; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			this.primary.transferAmount(
+					new Transaction("Id-" + (600 + from), "Id-" + (600 + to), new BigDecimal(1 + random.nextInt(5))));
+		}
+	}
+
+	private void assertSameLedger() {
+		for (int i = 0; i < ACCOUNTS; i++) {
+			String accountId = "Id-" + (600 + i);
+			assertThat(this.follower.getAccount(accountId).getBalance())
+					.isEqualByComparingTo(this.primary.getAccount(accountId).getBalance());
+		}
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Follower did not catch up with the primary");
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted while waiting for the follower");
+			}
+		}
+	}
+}
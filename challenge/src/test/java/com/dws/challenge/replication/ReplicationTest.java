@@ -0,0 +1,141 @@
+package com.dws.challenge.replication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReplicationStatus;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the application context as a follower of a primary log that the test writes directly.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { "replication.role=follower", "replication.port=0" })
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@Slf4j
+class ReplicationTest {
+
+	private static final TransferLog primaryLog = new TransferLog(1024);
+
+	private static final ReplicationServer primary = startPrimary();
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private ReplicationManager replicationManager;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@DynamicPropertySource
+	static void primaryAddress(DynamicPropertyRegistry registry) {
+		registry.add("replication.primary-host", () -> "localhost");
+		registry.add("replication.primary-port", primary::getPort);
+	}
+
+	@AfterAll
+	static void stopPrimary() {
+		primary.stop();
+	}
+
+	@Test
+	@Order(1)
+	void followerAppliesPrimaryLog() {
+		Account from = new Account("Id-301", new BigDecimal(1000));
+		Account to = new Account("Id-302", new BigDecimal(50));
+		primaryLog.accountCreated(from);
+		primaryLog.accountCreated(to);
+		from.setBalance(new BigDecimal(900));
+		to.setBalance(new BigDecimal(150));
+		primaryLog.transferCompleted(from, to, new BigDecimal(100));
+
+		awaitTrue(() -> this.replicationManager.getStatus().getLastSequence() == primaryLog.lastSequence());
+
+		assertThat(this.accountsService.getAccount("Id-301").getBalance()).isEqualByComparingTo("900");
+		assertThat(this.accountsService.getAccount("Id-302").getBalance()).isEqualByComparingTo("150");
+		ReplicationStatus status = this.replicationManager.getStatus();
+		assertThat(status.getRole()).isEqualTo("FOLLOWER");
+		assertThat(status.getLagEntries()).isZero();
+		assertThat(status.isConnected()).isTrue();
+	}
+
+	@Test
+	@Order(2)
+	void followerRejectsWrites() {
+		try {
+			this.accountsService.createAccount(new Account("Id-303", new BigDecimal(10)));
+			fail("Should have rejected the write on a follower");
+		} catch (ReadOnlyReplicaException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Instance is a read-only replica");
+		}
+		try {
+			this.accountsService.transferAmount(new Transaction("Id-301", "Id-302", BigDecimal.ONE));
+			fail("Should have rejected the write on a follower");
+		} catch (ReadOnlyReplicaException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Instance is a read-only replica");
+		}
+	}
+
+	@Test
+	@Order(3)
+	void promotedFollowerAcceptsWrites() throws InterruptedException {
+		awaitTrue(() -> this.replicationManager.getStatus().getLastSequence() == primaryLog.lastSequence());
+
+		ReplicationStatus status = this.replicationManager.promote();
+
+		assertThat(status.getRole()).isEqualTo("PRIMARY");
+		assertThat(status.getLastSequence()).isEqualTo(primaryLog.lastSequence());
+		this.accountsService.transferAmount(new Transaction("Id-301", "Id-302", new BigDecimal(100)));
+		assertThat(this.accountsService.getAccount("Id-301").getBalance()).isEqualByComparingTo("800");
+		assertThat(this.replicationManager.getStatus().getLastSequence()).isEqualTo(primaryLog.lastSequence() + 1);
+		assertThat(this.replicationManager.getServerPort()).isPositive();
+	}
+
+	private static ReplicationServer startPrimary() {
+		try {
+			return new ReplicationServer(primaryLog, InetAddress.getLoopbackAddress(), 0, 16);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Follower did not catch up with the primary");
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted while waiting for the follower");
+			}
+		}
+	}
+}
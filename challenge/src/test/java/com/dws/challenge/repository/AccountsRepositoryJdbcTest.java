@@ -0,0 +1,229 @@
+package com.dws.challenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.audit.LedgerAuditor;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.exception.AccountNotExistsException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("jdbc")
+@Slf4j
+class AccountsRepositoryJdbcTest {
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private LedgerAuditor ledgerAuditor;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@BeforeEach
+	void clearAccounts() {
+		accountsService.clearAccounts();
+	}
+
+	@Test
+	void usesJdbcRepository() {
+		assertThat(this.accountsService.getAccountsRepository()).isInstanceOf(AccountsRepositoryJdbc.class);
+	}
+
+	@Test
+	void addAccount() {
+		this.accountsService.createAccount(new Account("Id-301", new BigDecimal("1000.25")));
+
+		Account account = this.accountsService.getAccount("Id-301");
+		assertThat(account.getAccountId()).isEqualTo("Id-301");
+		assertThat(account.getBalance()).isEqualByComparingTo("1000.25");
+	}
+
+	@Test
+	void addAccount_failsOnDuplicateId() {
+		this.accountsService.createAccount(new Account("Id-302"));
+		try {
+			this.accountsService.createAccount(new Account("Id-302"));
+			fail("Should have failed when adding duplicate account");
+		} catch (DuplicateAccountIdException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Account id Id-302 already exists!");
+		}
+	}
+
+	@Test
+	void getAccount_failsWithNonExistingAccount() {
+		try {
+			this.accountsService.getAccount("Id-303");
+			fail("Should have failed when reading not existing account");
+		} catch (AccountNotExistsException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Account id Id-303 does not exist");
+		}
+	}
+
+	@Test
+	void transferUpdatesBothLegs() {
+		this.accountsService.createAccount(new Account("Id-304", new BigDecimal(500)));
+		this.accountsService.createAccount(new Account("Id-305", new BigDecimal(10)));
+		// reads go through the cache, which must not return the balance from before the transfer
+		this.accountsService.getAccount("Id-304");
+		this.accountsService.getAccount("Id-305");
+
+		this.accountsService.transferAmount(new Transaction("Id-304", "Id-305", new BigDecimal(200)));
+
+		assertThat(this.accountsService.getAccount("Id-304").getBalance()).isEqualByComparingTo("300");
+		assertThat(this.accountsService.getAccount("Id-305").getBalance()).isEqualByComparingTo("210");
+	}
+
+	@Test
+	void transferRollsBackOnOverdraft() {
+		Account fromAccount = new Account("Id-306", new BigDecimal(100));
+		Account toAccount = new Account("Id-307", new BigDecimal(10));
+		this.accountsService.createAccount(fromAccount);
+		this.accountsService.createAccount(toAccount);
+
+		// the caller's copies claim enough money, the locked rows do not
+		fromAccount.setBalance(new BigDecimal(1000));
+		try {
+			this.accountsService.getAccountsRepository().updateAccounts(fromAccount, toAccount, new BigDecimal(500));
+			fail("Should have failed when insufficient balance");
+		} catch (InsufficientBalanceException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Insufficient balance!");
+		}
+
+		assertThat(this.accountsService.getAccount("Id-306").getBalance()).isEqualByComparingTo("100");
+		assertThat(this.accountsService.getAccount("Id-307").getBalance()).isEqualByComparingTo("10");
+	}
+
+	/**
+	 * Concurrent transfers in both directions between a few accounts must neither deadlock on the row
+	 * locks nor lose money.
+	 */
+	@Test
+	void concurrentTransfersConserveMoney() throws Exception {
+		int accounts = 6;
+		for (int i = 0; i < accounts; i++) {
+			this.accountsService.createAccount(new Account("Id-31" + i, new BigDecimal(100000)));
+		}
+
+		// Mocking notificationService
+		doNothing().when(notificationService).notifyAboutTransfer(any(), any());
+
+		int threads = 8;
+		int transfersPerThread = 500;
+		AtomicInteger completed = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch latch = new CountDownLatch(threads);
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			executor.submit(() -> {
+				Random random = new Random();
+				try {
+					for (int i = 0; i < transfersPerThread; i++) {
+						int from = random.nextInt(accounts);
+						int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+						this.accountsService.transferAmount(
+								new Transaction("Id-31" + from, "Id-31" + to, new BigDecimal(random.nextInt(50) + 1)));
+						completed.incrementAndGet();
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+
+		assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+		long elapsedNanos = System.nanoTime() - start;
+		log.info("{} transfers on {} hot accounts at {} TPS", completed.get(), accounts,
+				completed.get() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+
+		assertThat(completed.get()).isEqualTo(threads * transfersPerThread);
+		assertThat(this.ledgerAuditor.audit().getDrift()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	/**
+	 * The store returns a new instance on every read, concurrent debits must still be serialized so
+	 * that none of them spends money reserved by a hold.
+	 */
+	@Test
+	void concurrentTransfersRespectHolds() throws Exception {
+		this.accountsService.createAccount(new Account("Id-320", new BigDecimal(1000)));
+		for (int i = 1; i <= 3; i++) {
+			this.accountsService.createAccount(new Account("Id-32" + i, BigDecimal.ZERO));
+		}
+		Hold hold = this.accountsService.authorize(new Hold("Id-320", "Id-321", new BigDecimal(900), null));
+
+		doNothing().when(notificationService).notifyAboutTransfer(any(), any());
+
+		int threads = 8;
+		AtomicInteger completed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			String payee = "Id-32" + (1 + t % 3);
+			executor.submit(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < 20; i++) {
+						try {
+							this.accountsService.transferAmount(new Transaction("Id-320", payee, BigDecimal.TEN));
+							completed.incrementAndGet();
+						} catch (InsufficientBalanceException e) {
+							rejected.incrementAndGet();
+						}
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		start.countDown();
+
+		assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+
+		// 100 available and the available balance has to stay above the amount: nine transfers of 10
+		assertThat(completed.get()).isEqualTo(9);
+		assertThat(rejected.get()).isEqualTo(threads * 20 - 9);
+		assertThat(this.accountsService.getAccount("Id-320").getBalance()).isEqualByComparingTo("910");
+
+		this.accountsService.capture("Id-320", hold.getHoldId(), null);
+		assertThat(this.accountsService.getAccount("Id-320").getBalance()).isEqualByComparingTo("10");
+		assertThat(this.ledgerAuditor.audit().getDrift()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+}
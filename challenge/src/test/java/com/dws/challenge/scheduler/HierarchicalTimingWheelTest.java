@@ -0,0 +1,85 @@
+package com.dws.challenge.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+	@Test
+	void expiresTimersInOrder() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+		wheel.schedule("late", 5000);
+		wheel.schedule("early", 25);
+		wheel.schedule("middle", 300);
+
+		List<String> expired = new ArrayList<>();
+		wheel.advanceClock(29, expired::add);
+		assertThat(expired).isEmpty();
+		wheel.advanceClock(30, expired::add);
+		assertThat(expired).containsExactly("early");
+		wheel.advanceClock(5010, expired::add);
+		assertThat(expired).containsExactly("early", "middle", "late");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void cancelledTimerDoesNotExpire() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+		HierarchicalTimingWheel.Timer<String> timer = wheel.schedule("cancelled", 1000);
+		wheel.schedule("kept", 1000);
+
+		assertThat(wheel.cancel(timer)).isTrue();
+		assertThat(wheel.cancel(timer)).isFalse();
+
+		List<String> expired = new ArrayList<>();
+		wheel.advanceClock(2000, expired::add);
+		assertThat(expired).containsExactly("kept");
+	}
+
+	@Test
+	void dueTimerExpiresWithNextTick() {
+		HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1000);
+		wheel.schedule("overdue", 10);
+
+		List<String> expired = new ArrayList<>();
+		wheel.advanceClock(1010, expired::add);
+		assertThat(expired).containsExactly("overdue");
+	}
+
+	/**
+	 * Random timers spanning several levels must never expire before their time and never later than
+	 * one tick after the clock passed it.
+	 */
+	@Test
+	void expiresWithinOneTick() {
+		Random random = new Random(7);
+		long tick = 5;
+		HierarchicalTimingWheel<long[]> wheel = new HierarchicalTimingWheel<>(tick, 16, 0);
+		Set<long[]> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+		long now = 0;
+		for (int step = 0; step < 2000; step++) {
+			for (int i = 0; i < 5; i++) {
+				long[] expiration = { now + random.nextInt(100_000) };
+				wheel.schedule(expiration, expiration[0]);
+				pending.add(expiration);
+			}
+			now += random.nextInt(50);
+			long clock = now;
+			wheel.advanceClock(clock, expiration -> {
+				assertThat(expiration[0]).isLessThanOrEqualTo(clock);
+				pending.remove(expiration);
+			});
+			long earliestPending = pending.stream().mapToLong(expiration -> expiration[0]).min().orElse(Long.MAX_VALUE);
+			assertThat(earliestPending).isGreaterThan(clock - tick);
+		}
+		assertThat(wheel.size()).isEqualTo(pending.size());
+	}
+}
@@ -0,0 +1,33 @@
+package com.dws.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class AccountHoldsTest {
+
+	@Test
+	void expireKeepsOpenHoldsInOnePass() {
+		AccountHolds accountHolds = new AccountHolds();
+		for (int i = 0; i < 10; i++) {
+			// odd holds expire at 100, even ones at 1000 + i
+			accountHolds.add(i, BigDecimal.ONE, "Id-" + i, i % 2 == 0 ? 1000 + i : 100);
+		}
+
+		assertThat(accountHolds.expire(100)).isEqualTo(5);
+
+		assertThat(accountHolds.size()).isEqualTo(5);
+		assertThat(accountHolds.getTotal()).isEqualByComparingTo("5");
+		assertThat(accountHolds.getEarliestExpiry()).isEqualTo(1000);
+		for (int i = 0; i < 10; i++) {
+			int index = accountHolds.indexOf(i);
+			if (i % 2 == 0) {
+				assertThat(accountHolds.payeeAt(index)).isEqualTo("Id-" + i);
+			} else {
+				assertThat(index).isNegative();
+			}
+		}
+	}
+}
@@ -4,12 +4,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,10 +24,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
 import com.dws.challenge.domain.Transaction;
 import com.dws.challenge.exception.AccountNotExistsException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.HoldNotExistsException;
 import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,10 +45,13 @@ class AccountsServiceTest {
 	@MockBean
 	NotificationService notificationService;
 
+	@MockBean
+	TransferPreCheck transferPreCheck;
+
 	@BeforeEach
 	void prepareMockMvc() {
-		// Reset the existing accounts before each test.
-		accountsService.getAccountsRepository().clearAccounts();
+		// Reset the existing accounts and their holds before each test.
+		accountsService.clearAccounts();
 	}
 
 	@Test
@@ -90,6 +100,22 @@ class AccountsServiceTest {
 		}
 	}
 
+	@Test
+	void transferAccount_preChecksSkipNonExistingAccount() {
+		this.accountsService.createAccount(new Account("Id-128A", new BigDecimal(1000)));
+		for (int i = 0; i < 3; i++) {
+			try {
+				this.accountsService.transferAmount(new Transaction("Id-bogus-" + i, "Id-128A", BigDecimal.TEN));
+				fail("Should have failed when using not existing account in transfer");
+			} catch (AccountNotExistsException ex) {
+				assertThat(ex.getMessage()).isEqualTo("Account id Id-bogus-" + i + " does not exist");
+			}
+		}
+
+		// bogus ids never reach the pre-checks, e.g. to take up velocity counters
+		verify(this.transferPreCheck, never()).check(any());
+	}
+
 	@Test
 	void transferAccount_failsWithOverdraft() {
 		Account toAccount = new Account("Id-124", new BigDecimal(10));
@@ -322,4 +348,173 @@ class AccountsServiceTest {
 		// concurrent requests
 		assertThat(this.accountsService.getAccount("Id-125B").getBalance()).isEqualTo(currentBalanceAccountB);
 	}
+
+	@Test
+	void authorizeReservesAvailableBalance() {
+		this.accountsService.createAccount(new Account("Id-H01", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H02", new BigDecimal(0)));
+
+		Hold hold = this.accountsService.authorize(new Hold("Id-H01", "Id-H02", new BigDecimal(300), null));
+
+		assertThat(hold.getHoldId()).isNotNull();
+		assertThat(hold.getExpiresAt()).isAfter(Instant.now());
+		Account account = this.accountsService.getAccount("Id-H01");
+		assertThat(account.getBalance()).isEqualByComparingTo("1000");
+		assertThat(account.getHeldBalance()).isEqualByComparingTo("300");
+		assertThat(account.getAvailableBalance()).isEqualByComparingTo("700");
+		try {
+			this.accountsService.transferAmount(new Transaction("Id-H01", "Id-H02", new BigDecimal(800)));
+			fail("Should have failed when transferring held balance");
+		} catch (InsufficientBalanceException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Insufficient balance!");
+		}
+		this.accountsService.transferAmount(new Transaction("Id-H01", "Id-H02", new BigDecimal(600)));
+		assertThat(this.accountsService.getAccount("Id-H01").getAvailableBalance()).isEqualByComparingTo("100");
+	}
+
+	@Test
+	void authorize_failsWithInsufficientAvailableBalance() {
+		this.accountsService.createAccount(new Account("Id-H03", new BigDecimal(500)));
+		this.accountsService.createAccount(new Account("Id-H04", new BigDecimal(0)));
+		this.accountsService.authorize(new Hold("Id-H03", "Id-H04", new BigDecimal(400), null));
+
+		try {
+			this.accountsService.authorize(new Hold("Id-H03", "Id-H04", new BigDecimal(200), null));
+			fail("Should have failed when insufficient available balance");
+		} catch (InsufficientBalanceException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Insufficient balance!");
+		}
+	}
+
+	@Test
+	void captureTransfersPartOfHold() {
+		this.accountsService.createAccount(new Account("Id-H05", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H06", new BigDecimal(10)));
+		Hold hold = this.accountsService.authorize(new Hold("Id-H05", "Id-H06", new BigDecimal(300), null));
+
+		this.accountsService.capture("Id-H05", hold.getHoldId(), new BigDecimal(200));
+
+		Account from = this.accountsService.getAccount("Id-H05");
+		assertThat(from.getBalance()).isEqualByComparingTo("800");
+		assertThat(from.getHeldBalance()).isEqualByComparingTo("0");
+		assertThat(this.accountsService.getAccount("Id-H06").getBalance()).isEqualByComparingTo("210");
+		try {
+			this.accountsService.capture("Id-H05", hold.getHoldId(), null);
+			fail("Should have failed when capturing a hold twice");
+		} catch (HoldNotExistsException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Hold " + hold.getHoldId() + " does not exist for account Id-H05");
+		}
+	}
+
+	@Test
+	void capture_failsAboveHeldAmount() {
+		this.accountsService.createAccount(new Account("Id-H07", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H08", new BigDecimal(0)));
+		Hold hold = this.accountsService.authorize(new Hold("Id-H07", "Id-H08", new BigDecimal(100), null));
+
+		try {
+			this.accountsService.capture("Id-H07", hold.getHoldId(), new BigDecimal(101));
+			fail("Should have failed when capturing more than held");
+		} catch (IllegalArgumentException ex) {
+			assertThat(ex.getMessage()).isEqualTo("Capture amount exceeds the held amount!");
+		}
+		assertThat(this.accountsService.getAccount("Id-H07").getHeldBalance()).isEqualByComparingTo("100");
+	}
+
+	@Test
+	void voidAndExpiryReleaseHolds() throws Exception {
+		this.accountsService.createAccount(new Account("Id-H09", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H10", new BigDecimal(0)));
+		Hold voided = this.accountsService.authorize(new Hold("Id-H09", "Id-H10", new BigDecimal(100), null));
+		this.accountsService.authorize(
+				new Hold("Id-H09", "Id-H10", new BigDecimal(200), Instant.now().plusMillis(50)));
+		assertThat(this.accountsService.getAccount("Id-H09").getHeldBalance()).isEqualByComparingTo("300");
+
+		this.accountsService.voidHold("Id-H09", voided.getHoldId());
+		assertThat(this.accountsService.getAccount("Id-H09").getHeldBalance()).isEqualByComparingTo("200");
+
+		Thread.sleep(100);
+		this.accountsService.expireHolds();
+		Account account = this.accountsService.getAccount("Id-H09");
+		assertThat(account.getHeldBalance()).isEqualByComparingTo("0");
+		assertThat(account.getBalance()).isEqualByComparingTo("1000");
+	}
+
+	@Test
+	void getAccount_doesNotChangeStoredAccount() {
+		this.accountsService.createAccount(new Account("Id-H13", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H14", new BigDecimal(0)));
+		this.accountsService.authorize(new Hold("Id-H13", "Id-H14", new BigDecimal(300), null));
+
+		assertThat(this.accountsService.getAccount("Id-H13").getHeldBalance()).isEqualByComparingTo("300");
+		assertThat(this.accountsService.getAccountsRepository().getAccount("Id-H13").getHeldBalance())
+				.isEqualByComparingTo("0");
+	}
+
+	/**
+	 * Holds are lost with the instance, a capture after a restart must say so rather than find a hold
+	 * of the new instance.
+	 */
+	@Test
+	void capture_failsForHoldOfEarlierStart() throws Exception {
+		AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+		AccountsService beforeRestart = AccountsService.detached(accountsRepository, this.notificationService);
+		beforeRestart.createAccount(new Account("Id-H15", new BigDecimal(1000)));
+		beforeRestart.createAccount(new Account("Id-H16", new BigDecimal(0)));
+		Hold lost = beforeRestart.authorize(new Hold("Id-H15", "Id-H16", new BigDecimal(300), null));
+
+		Thread.sleep(5);
+		AccountsService afterRestart = AccountsService.detached(accountsRepository, this.notificationService);
+		Hold hold = afterRestart.authorize(new Hold("Id-H15", "Id-H16", new BigDecimal(100), null));
+		assertThat(hold.getHoldId()).isGreaterThan(lost.getHoldId());
+		try {
+			afterRestart.capture("Id-H15", lost.getHoldId(), null);
+			fail("Should have failed when capturing a hold of an earlier start");
+		} catch (HoldNotExistsException ex) {
+			assertThat(ex.getMessage())
+					.isEqualTo("Hold " + lost.getHoldId() + " of account Id-H15 was released when the ledger restarted");
+		}
+		assertThat(afterRestart.getAccount("Id-H15").getBalance()).isEqualByComparingTo("1000");
+	}
+
+	/**
+	 * Concurrent authorizations and transfers on one account must never reserve or move more than
+	 * its balance.
+	 */
+	@Test
+	void authorizeTestThreadSafty() throws Exception {
+		this.accountsService.createAccount(new Account("Id-H11", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-H12", new BigDecimal(0)));
+		AtomicInteger authorized = new AtomicInteger();
+		AtomicInteger transferred = new AtomicInteger();
+		int requests = 100;
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		CountDownLatch latch = new CountDownLatch(requests);
+
+		for (int i = 0; i < requests; i++) {
+			boolean hold = i % 2 == 0;
+			executor.submit(() -> {
+				try {
+					if (hold) {
+						this.accountsService.authorize(new Hold("Id-H11", "Id-H12", new BigDecimal(30), null));
+						authorized.incrementAndGet();
+					} else {
+						this.accountsService.transferAmount(new Transaction("Id-H11", "Id-H12", new BigDecimal(30)));
+						transferred.incrementAndGet();
+					}
+				} catch (InsufficientBalanceException e) {
+					// expected once the balance is used up
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		latch.await();
+		executor.shutdown();
+
+		Account account = this.accountsService.getAccount("Id-H11");
+		assertThat(account.getBalance()).isEqualByComparingTo(new BigDecimal(1000 - 30 * transferred.get()));
+		assertThat(account.getHeldBalance()).isEqualByComparingTo(new BigDecimal(30 * authorized.get()));
+		assertThat(account.getAvailableBalance()).isPositive();
+	}
 }
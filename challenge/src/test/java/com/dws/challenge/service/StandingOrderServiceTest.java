@@ -0,0 +1,86 @@
+package com.dws.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.StandingOrder;
+
+class StandingOrderServiceTest {
+
+	private AccountsService accountsService;
+
+	private StandingOrderService standingOrderService;
+
+	@BeforeEach
+	void setUp() {
+		this.accountsService = mock(AccountsService.class);
+		this.standingOrderService = new StandingOrderService(this.accountsService, 10, 64, 2);
+		this.standingOrderService.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.standingOrderService.stop();
+	}
+
+	@Test
+	void executesOnNamedDaemonThread() throws Exception {
+		AtomicReference<Thread> executingThread = new AtomicReference<>();
+		CountDownLatch executed = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			executingThread.set(Thread.currentThread());
+			executed.countDown();
+			return null;
+		}).when(this.accountsService).transferAmount(any());
+
+		this.standingOrderService.register(new StandingOrder("Id-901", "Id-902", BigDecimal.TEN, Instant.now(), null));
+
+		assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executingThread.get().getName()).startsWith("standing-order-executor-");
+		assertThat(executingThread.get().isDaemon()).isTrue();
+	}
+
+	/**
+	 * A cancel that comes while the order is executing waits for it, the order never runs again.
+	 */
+	@Test
+	void cancelDuringExecutionStopsOrder() throws Exception {
+		CountDownLatch executing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			executing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		}).when(this.accountsService).transferAmount(any());
+
+		StandingOrder standingOrder = this.standingOrderService
+				.register(new StandingOrder("Id-903", "Id-904", BigDecimal.TEN, Instant.now(), 1L));
+		assertThat(executing.await(5, TimeUnit.SECONDS)).isTrue();
+
+		CompletableFuture<Void> cancel = CompletableFuture
+				.runAsync(() -> this.standingOrderService.cancel(standingOrder.getOrderId()));
+		Thread.sleep(100);
+		assertThat(cancel).isNotDone();
+		release.countDown();
+		cancel.get(5, TimeUnit.SECONDS);
+
+		Thread.sleep(1500);
+		verify(this.accountsService, times(1)).transferAmount(any());
+		assertThat(this.standingOrderService.getPendingOrders()).isZero();
+	}
+}
@@ -0,0 +1,29 @@
+package com.dws.challenge.startup;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+class AccountsRepositoryCheckTest {
+
+	@Test
+	void acceptsMatchingStore() {
+		new AccountsRepositoryCheck(new AccountsRepositoryInMemory(), "memory");
+	}
+
+	@Test
+	void acceptsMatchingStoreInAnyCase() {
+		new AccountsRepositoryCheck(new AccountsRepositoryInMemory(), "Memory");
+	}
+
+	@Test
+	void failsWhenBuiltWithOtherStore() {
+		assertThatThrownBy(() -> new AccountsRepositoryCheck(new AccountsRepositoryInMemory(), "jdbc"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("accounts.repository is jdbc but the application uses the memory account store it was"
+						+ " built with ahead of time; rebuild with -PaotProfiles=jdbc or start with"
+						+ " accounts.repository=memory");
+	}
+}
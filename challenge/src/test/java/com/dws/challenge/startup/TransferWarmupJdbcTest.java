@@ -0,0 +1,46 @@
+package com.dws.challenge.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.exception.AccountNotExistsException;
+import com.dws.challenge.replication.TransferLog;
+import com.dws.challenge.repository.AccountsRepositoryJdbc;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+/**
+ * With the jdbc store the warm-up runs on a database of its own, the application's stays empty.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { "warmup.enabled=true", "warmup.transfers=2000" })
+@ActiveProfiles("jdbc")
+class TransferWarmupJdbcTest {
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private TransferLog transferLog;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@Test
+	void warmupLeavesDatabaseUntouched() {
+		assertThat(this.accountsService.getAccountsRepository()).isInstanceOf(AccountsRepositoryJdbc.class);
+		assertThatThrownBy(() -> this.accountsService.getAccount("warmup-0"))
+				.isInstanceOf(AccountNotExistsException.class);
+		assertThat(this.transferLog.lastSequence()).isZero();
+		verifyNoInteractions(this.notificationService);
+	}
+}
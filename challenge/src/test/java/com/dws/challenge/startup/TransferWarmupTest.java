@@ -0,0 +1,56 @@
+package com.dws.challenge.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.contention.LockContentionProfiler;
+import com.dws.challenge.exception.AccountNotExistsException;
+import com.dws.challenge.replication.TransferLog;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+
+/**
+ * The warm-up runs while the context starts, the application must not notice it afterwards.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = { "warmup.enabled=true",
+		"warmup.transfers=2000", "warmup.requests=50" })
+class TransferWarmupTest {
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private TransferLog transferLog;
+
+	@Autowired
+	private LockContentionProfiler lockProfiler;
+
+	@Autowired
+	private LoggingSystem loggingSystem;
+
+	@MockBean
+	NotificationService notificationService;
+
+	@Test
+	void warmupLeavesNoTrace() {
+		assertThatThrownBy(() -> this.accountsService.getAccount("warmup-0"))
+				.isInstanceOf(AccountNotExistsException.class);
+		assertThat(this.transferLog.lastSequence()).isZero();
+		assertThat(this.lockProfiler.getHotAccounts(1).getSampledTransfers()).isZero();
+		verifyNoInteractions(this.notificationService);
+		assertThat(this.loggingSystem.getLoggerConfiguration(AccountsService.class.getName()).getEffectiveLevel())
+				.isEqualTo(LogLevel.INFO);
+	}
+}
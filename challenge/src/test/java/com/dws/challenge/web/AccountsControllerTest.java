@@ -3,13 +3,16 @@ package com.dws.challenge.web;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -28,8 +31,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.context.WebApplicationContext;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.StandingOrder;
 import com.dws.challenge.service.AccountsService;
 import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.StandingOrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +54,12 @@ class AccountsControllerTest {
 	@MockBean
 	NotificationService notificationService;
 
+	@Autowired
+	private StandingOrderService standingOrderService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@Autowired
 	private WebApplicationContext webApplicationContext;
 
@@ -54,8 +67,8 @@ class AccountsControllerTest {
 	void prepareMockMvc() {
 		this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
 
-		// Reset the existing accounts before each test.
-		accountsService.getAccountsRepository().clearAccounts();
+		// Reset the existing accounts and their holds before each test.
+		accountsService.clearAccounts();
 	}
 
 	@Test
@@ -114,7 +127,8 @@ class AccountsControllerTest {
 		Account account = new Account(uniqueAccountId, new BigDecimal("123.45"));
 		this.accountsService.createAccount(account);
 		this.mockMvc.perform(get("/v1/accounts/" + uniqueAccountId)).andExpect(status().isOk())
-				.andExpect(content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
+				.andExpect(content().string("{\"accountId\":\"" + uniqueAccountId
+						+ "\",\"balance\":123.45,\"heldBalance\":0,\"availableBalance\":123.45}"));
 	}
 
 	@Test
@@ -172,4 +186,97 @@ class AccountsControllerTest {
 						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"4000\"}"))
 				.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void registerStandingOrder() throws Exception {
+		this.accountsService.createAccount(new Account("Id-123", new BigDecimal(2000)));
+		this.accountsService.createAccount(new Account("Id-124", new BigDecimal(10)));
+		String executeAt = Instant.now().plusSeconds(3600).toString();
+
+		String response = this.mockMvc
+				.perform(post("/v1/accounts/standingOrders").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"100\",\"executeAt\":\""
+								+ executeAt + "\",\"repeatIntervalSeconds\":86400}"))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.orderId").isNotEmpty()).andReturn().getResponse()
+				.getContentAsString();
+
+		StandingOrder standingOrder = this.objectMapper.readValue(response, StandingOrder.class);
+		this.mockMvc.perform(delete("/v1/accounts/standingOrders/" + standingOrder.getOrderId()))
+				.andExpect(status().isOk());
+		this.mockMvc.perform(delete("/v1/accounts/standingOrders/" + standingOrder.getOrderId()))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void registerStandingOrderAccountNotExist() throws Exception {
+		this.mockMvc
+				.perform(post("/v1/accounts/standingOrders").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"100\",\"executeAt\":\""
+								+ Instant.now() + "\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void registerStandingOrderNoExecutionTime() throws Exception {
+		this.mockMvc
+				.perform(post("/v1/accounts/standingOrders").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"100\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void standingOrderExecutesWhenDue() throws Exception {
+		this.accountsService.createAccount(new Account("Id-123", new BigDecimal(2000)));
+		this.accountsService.createAccount(new Account("Id-124", new BigDecimal(10)));
+		// Mocking notificationService
+		doNothing().when(notificationService).notifyAboutTransfer(any(), any());
+
+		this.standingOrderService.register(new StandingOrder("Id-123", "Id-124", new BigDecimal(500),
+				Instant.now().plusMillis(200), null));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.accountsService.getAccount("Id-124").getBalance().compareTo(new BigDecimal(510)) != 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(this.accountsService.getAccount("Id-124").getBalance()).isEqualByComparingTo("510");
+		assertThat(this.accountsService.getAccount("Id-123").getBalance()).isEqualByComparingTo("1500");
+	}
+
+	@Test
+	void authorizeAndCaptureHold() throws Exception {
+		this.accountsService.createAccount(new Account("Id-123", new BigDecimal(1000)));
+		this.accountsService.createAccount(new Account("Id-124", new BigDecimal(10)));
+		// Mocking notificationService
+		doNothing().when(notificationService).notifyAboutTransfer(any(), any());
+
+		String response = this.mockMvc
+				.perform(post("/v1/accounts/holds").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"400\"}"))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.holdId").exists()).andReturn().getResponse()
+				.getContentAsString();
+		Hold hold = this.objectMapper.readValue(response, Hold.class);
+		this.mockMvc.perform(get("/v1/accounts/Id-123")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.heldBalance").value(400)).andExpect(jsonPath("$.availableBalance").value(600));
+
+		this.mockMvc.perform(post("/v1/accounts/Id-123/holds/" + hold.getHoldId() + "/capture?amount=250"))
+				.andExpect(status().isOk());
+
+		assertThat(this.accountsService.getAccount("Id-123").getBalance()).isEqualByComparingTo("750");
+		assertThat(this.accountsService.getAccount("Id-123").getHeldBalance()).isEqualByComparingTo("0");
+		assertThat(this.accountsService.getAccount("Id-124").getBalance()).isEqualByComparingTo("260");
+		this.mockMvc.perform(delete("/v1/accounts/Id-123/holds/" + hold.getHoldId()))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void authorizeHoldInsufficientBalance() throws Exception {
+		this.accountsService.createAccount(new Account("Id-123", new BigDecimal(100)));
+		this.accountsService.createAccount(new Account("Id-124", new BigDecimal(10)));
+
+		this.mockMvc
+				.perform(post("/v1/accounts/holds").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFrom\":\"Id-123\",\"accountTo\":\"Id-124\",\"amount\":\"400\"}"))
+				.andExpect(status().isBadRequest());
+	}
 }